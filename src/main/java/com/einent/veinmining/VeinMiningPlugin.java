@@ -1,20 +1,36 @@
 package com.einent.veinmining;
 
 import com.einent.veinmining.commands.VeinMiningCommand;
+import com.einent.veinmining.config.ConfigSaver;
+import com.einent.veinmining.config.PlayerDataStore;
 import com.einent.veinmining.config.VeinMiningConfig;
+import com.einent.veinmining.systems.BlockTypeIndex;
+import com.einent.veinmining.systems.DropRoller;
+import com.einent.veinmining.systems.MiningProfile;
 import com.einent.veinmining.systems.VeinMiningInputSystem;
 import com.einent.veinmining.systems.VeinMiningSystem;
+import com.hypixel.hytale.assetstore.event.LoadedAssetsEvent;
 import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.event.events.permissions.GroupPermissionChangeEvent;
+import com.hypixel.hytale.server.core.event.events.permissions.PlayerGroupEvent;
+import com.hypixel.hytale.server.core.event.events.permissions.PlayerPermissionChangeEvent;
+import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
+import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
 import com.hypixel.hytale.server.core.util.Config;
 
+import java.io.IOException;
 import java.util.logging.Level;
 
 public class VeinMiningPlugin extends JavaPlugin {
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
     private final Config<VeinMiningConfig> config;
+    private ConfigSaver saver;
+    private PlayerDataStore players;
 
     public VeinMiningPlugin(JavaPluginInit init) {
         super(init);
@@ -23,10 +39,54 @@ public class VeinMiningPlugin extends JavaPlugin {
 
     @Override
     protected void setup() {
-        this.config.save();
-        this.getCommandRegistry().registerCommand(new VeinMiningCommand(config));
-        this.getEntityStoreRegistry().registerSystem(new VeinMiningSystem(config));
-        this.getEntityStoreRegistry().registerSystem(new VeinMiningInputSystem(config));
+        this.saver = new ConfigSaver(config, this.getDataDirectory().resolve("VeinMining.json"));
+        this.players = new PlayerDataStore(this.getDataDirectory().resolve("players"));
+        migrateLegacyPlayerData();
+        this.saver.markDirty();
+        this.getCommandRegistry().registerCommand(new VeinMiningCommand(config, saver, players));
+        this.getEntityStoreRegistry().registerSystem(new VeinMiningSystem(config, players));
+        this.getEntityStoreRegistry().registerSystem(new VeinMiningInputSystem(config, players));
+        this.getEventRegistry().register(LoadedAssetsEvent.class, BlockType.class, event -> onAssetsReloaded());
+        this.getEventRegistry().register(LoadedAssetsEvent.class, Item.class, event -> MiningProfile.invalidateAll());
+        this.getEventRegistry().register(PlayerConnectEvent.class, event -> {
+            players.load(event.getPlayerRef().getUuid().toString());
+            config.get().snapshot().playerJoined(event.getPlayerRef().getUuid());
+        });
+        this.getEventRegistry().register(PlayerDisconnectEvent.class, event -> {
+            players.evict(event.getPlayerRef().getUuid().toString());
+            config.get().snapshot().playerLeft(event.getPlayerRef().getUuid().toString());
+        });
+        this.getEventRegistry().register(PlayerPermissionChangeEvent.class, event -> config.get().snapshot().refreshPolicyAsync(event.getPlayerUuid()));
+        this.getEventRegistry().register(PlayerGroupEvent.class, event -> config.get().snapshot().refreshPolicyAsync(event.getPlayerUuid()));
+        this.getEventRegistry().register(GroupPermissionChangeEvent.class, event -> config.get().snapshot().invalidatePolicies());
+        if (!DropRoller.bind()) {
+            LOGGER.at(Level.WARNING).log("VeinMining drop lists unavailable (" + DropRoller.getStatus() + "). Blocks with drop lists will only drop their direct items until ItemModule is available.");
+        }
         LOGGER.at(Level.INFO).log("VeinMining Plugin Loaded.");
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void shutdown() {
+        if (players != null) players.close();
+        if (saver != null) saver.close();
+    }
+
+    private void migrateLegacyPlayerData() {
+        VeinMiningConfig cfg = config.get();
+        VeinMiningConfig.PlayerModeEntry[] legacy = cfg.getLegacyPlayerData();
+        if (legacy == null) return;
+        try {
+            players.migrate(legacy);
+            cfg.clearLegacyPlayerData();
+            LOGGER.at(Level.INFO).log("Migrated " + legacy.length + " VeinMining player entries to the player data store.");
+        } catch (IOException e) {
+            LOGGER.at(Level.WARNING).log("Failed to migrate VeinMining player data, keeping it in the config: " + e);
+        }
+    }
+
+    private void onAssetsReloaded() {
+        BlockTypeIndex.invalidate();
+        MiningProfile.invalidateAll();
+        config.get().snapshot().invalidateBlockIds();
+    }
+}
@@ -1,5 +1,8 @@
 package com.einent.veinmining.commands;
 
+import com.einent.veinmining.config.ConfigSaver;
+import com.einent.veinmining.config.PlayerDataStore;
+import com.einent.veinmining.config.PlayerPolicy;
 import com.einent.veinmining.config.VeinMiningConfig;
 import com.einent.veinmining.gui.VeinMiningGui;
 import com.hypixel.hytale.component.Ref;
@@ -29,17 +32,21 @@ import java.util.logging.Level;
 public class VeinMiningCommand extends AbstractAsyncCommand {
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
     private final Config<VeinMiningConfig> config;
-    private final OptionalArg<String> modeArg, patternArg, orientationArg, keyArg, targetArg, allowedModesArg, allowedPatternsArg;
+    private final ConfigSaver saver;
+    private final PlayerDataStore players;
+    private final OptionalArg<String> modeArg, patternArg, orientationArg, keyArg, targetArg, allowedModesArg, allowedPatternsArg, playerDataArg;
     private final OptionalArg<Integer> limitArg;
-    private final OptionalArg<Boolean> allowGuiArg, enabledArg;
+    private final OptionalArg<Boolean> allowGuiArg, enabledArg, reloadArg;
 
     private static final List<String> VALID_MODES = Arrays.asList("ores", "all", "off");
     private static final List<String> VALID_PATTERNS = Arrays.asList("freeform", "cube", "tunnel3", "tunnel2", "tunnel1", "wall3", "wall5", "diagonal");
 
-    public VeinMiningCommand(Config<VeinMiningConfig> config) {
+    public VeinMiningCommand(Config<VeinMiningConfig> config, ConfigSaver saver, PlayerDataStore players) {
         super("veinmining", "Configure VeinMining settings.");
         this.addAliases("vein", "vm", "veinminer");
         this.config = config;
+        this.saver = saver;
+        this.players = players;
 
         this.modeArg = this.withOptionalArg("mode", "ores, all, off", ArgTypes.STRING);
         this.patternArg = this.withOptionalArg("pattern", "freeform, cube, etc", ArgTypes.STRING);
@@ -52,6 +59,8 @@ public class VeinMiningCommand extends AbstractAsyncCommand {
         this.enabledArg = this.withOptionalArg("enable", "Enable/Disable mod (Admin)", ArgTypes.BOOLEAN);
         this.allowedModesArg = this.withOptionalArg("allowed_modes", "CSV, 'inherit' or 'none' (Admin)", ArgTypes.STRING);
         this.allowedPatternsArg = this.withOptionalArg("allowed_patterns", "CSV, 'inherit' or 'none' (Admin)", ArgTypes.STRING);
+        this.reloadArg = this.withOptionalArg("reload", "Reload config from disk (Admin)", ArgTypes.BOOLEAN);
+        this.playerDataArg = this.withOptionalArg("player_data", "export, import (Admin)", ArgTypes.STRING);
 
         this.setPermissionGroup(GameMode.Adventure);
     }
@@ -81,6 +90,25 @@ public class VeinMiningCommand extends AbstractAsyncCommand {
                 String tName = targetArg.get(context);
                 boolean isAdmin = player.hasPermission("veinmining.admin");
 
+                if (Boolean.TRUE.equals(reloadArg.get(context))) {
+                    if (!isAdmin) {
+                        context.sendMessage(Message.raw("No permission to reload the config."));
+                        return;
+                    }
+                    reload(context);
+                    return;
+                }
+
+                String pd = playerDataArg.get(context);
+                if (pd != null) {
+                    if (!isAdmin) {
+                        context.sendMessage(Message.raw("No permission to manage player data."));
+                        return;
+                    }
+                    transferPlayerData(context, pd);
+                    return;
+                }
+
                 if (tName != null) {
                     if (!isAdmin) {
                         context.sendMessage(Message.raw("No permission to modify others."));
@@ -94,17 +122,18 @@ public class VeinMiningCommand extends AbstractAsyncCommand {
                 if (uuidComp == null) return;
                 String uuid = uuidComp.getUuid().toString();
 
-                if (!cfg.isModEnabled(uuid, isAdmin)) {
+                PlayerPolicy policy = cfg.snapshot().getPolicy(uuid);
+                if (!policy.isModEnabled()) {
                     context.sendMessage(Message.raw("VeinMining is disabled for you."));
                     return;
                 }
 
                 if (modeArg.get(context) == null && patternArg.get(context) == null && orientationArg.get(context) == null && keyArg.get(context) == null) {
-                    openGui(context, player, uuid, isAdmin);
+                    openGui(context, player, policy);
                     return;
                 }
 
-                handlePlayer(context, player, uuid, isAdmin);
+                handlePlayer(context, uuid, policy);
             } catch (Exception e) {
                 LOGGER.at(Level.SEVERE).log("Error in VeinMiningCommand", e);
             }
@@ -138,10 +167,39 @@ public class VeinMiningCommand extends AbstractAsyncCommand {
         String[] patterns = parseListArg(ap, VALID_PATTERNS);
 
         cfg.setPlayerOverride(tUuid.toString(), limitArg.get(context), allowGuiArg.get(context), enabledArg.get(context), modes, patterns);
-        config.save();
+        saver.markDirty();
         context.sendMessage(Message.raw("Admin: Updated settings for " + tDisplay));
     }
 
+    private void reload(CommandContext context) {
+        VeinMiningConfig.Snapshot previous = config.get().snapshot();
+        CompletableFuture.runAsync(saver::flush).thenCompose(v -> config.load()).thenAccept(cfg -> {
+            cfg.publishFrom(previous);
+            context.sendMessage(Message.raw("VeinMining config reloaded."));
+        }).exceptionally(e -> {
+            LOGGER.at(Level.SEVERE).log("Failed to reload VeinMining config", e);
+            context.sendMessage(Message.raw("Failed to reload VeinMining config."));
+            return null;
+        });
+    }
+
+    private void transferPlayerData(CommandContext context, String action) {
+        CompletableFuture<Integer> transfer;
+        if (action.equalsIgnoreCase("export")) transfer = players.exportJson();
+        else if (action.equalsIgnoreCase("import")) transfer = players.importJson();
+        else {
+            context.sendMessage(Message.raw("Use --player_data export or --player_data import."));
+            return;
+        }
+        String file = players.getExportPath().getFileName().toString();
+        transfer.thenAccept(count -> context.sendMessage(Message.raw("VeinMining player data: " + action.toLowerCase() + "ed " + count + " entries (" + file + ").")))
+                .exceptionally(e -> {
+                    LOGGER.at(Level.SEVERE).log("Failed to " + action.toLowerCase() + " VeinMining player data", e);
+                    context.sendMessage(Message.raw("Failed to " + action.toLowerCase() + " VeinMining player data."));
+                    return null;
+                });
+    }
+
     private String[] parseListArg(String arg, List<String> validOptions) {
         if (arg == null) return null;
         if (arg.equalsIgnoreCase("inherit")) return null;
@@ -154,16 +212,14 @@ public class VeinMiningCommand extends AbstractAsyncCommand {
                 .toArray(String[]::new);
     }
 
-    private void handlePlayer(CommandContext context, Player player, String uuid, boolean isAdmin) {
-        VeinMiningConfig cfg = config.get();
-        VeinMiningConfig.GroupSettings group = cfg.resolveGroup(player);
+    private void handlePlayer(CommandContext context, String uuid, PlayerPolicy policy) {
         List<String> updates = new ArrayList<>();
 
         String rm = modeArg.get(context);
         if (rm != null) {
             String val = rm.toLowerCase();
-            if (cfg.getEffectiveAllowedModes(uuid, group, isAdmin).contains(val)) {
-                cfg.setPlayerTargetMode(uuid, val);
+            if (policy.isModeAllowed(val)) {
+                players.setTargetMode(uuid, val);
                 updates.add("Mode: " + val.toUpperCase());
             }
             else context.sendMessage(Message.raw("Mode '" + val + "' is restricted for your rank."));
@@ -172,8 +228,8 @@ public class VeinMiningCommand extends AbstractAsyncCommand {
         String rp = patternArg.get(context);
         if (rp != null) {
             String val = rp.toLowerCase();
-            if (cfg.isPatternAllowed(uuid, val, group, isAdmin)) {
-                cfg.setPlayerPattern(uuid, val);
+            if (policy.isPatternAllowed(val)) {
+                players.setPattern(uuid, val);
                 updates.add("Pattern: " + val);
             }
             else context.sendMessage(Message.raw("Pattern '" + val + "' is restricted for your rank."));
@@ -182,7 +238,7 @@ public class VeinMiningCommand extends AbstractAsyncCommand {
         String ori = orientationArg.get(context);
         if (ori != null) {
             if(ori.equalsIgnoreCase("player") || ori.equalsIgnoreCase("block")) {
-                cfg.setPlayerOrientation(uuid, ori.toLowerCase());
+                players.setOrientation(uuid, ori.toLowerCase());
                 updates.add("Orientation Updated");
             }
         }
@@ -196,22 +252,18 @@ public class VeinMiningCommand extends AbstractAsyncCommand {
                 } else {
                     normalized = key.startsWith("w") ? "walking" : "crouching";
                 }
-                cfg.setPlayerActivation(uuid, normalized);
+                players.setActivation(uuid, normalized);
                 updates.add("Activation Key Updated");
             }
         }
 
         if (!updates.isEmpty()) {
-            config.save();
             context.sendMessage(Message.raw("Updated: " + String.join(", ", updates)));
         }
     }
 
-    private void openGui(CommandContext context, Player player, String uuid, boolean isAdmin) {
-        VeinMiningConfig cfg = config.get();
-        VeinMiningConfig.GroupSettings group = cfg.resolveGroup(player);
-
-        if (!cfg.canOpenGui(uuid, group, isAdmin)) {
+    private void openGui(CommandContext context, Player player, PlayerPolicy policy) {
+        if (!policy.canOpenGui()) {
             context.sendMessage(Message.raw("You do not have permission to open the VeinMining GUI."));
             return;
         }
@@ -221,7 +273,7 @@ public class VeinMiningCommand extends AbstractAsyncCommand {
 
         PlayerRef pr = ref.getStore().getComponent(ref, PlayerRef.getComponentType());
         if (pr != null) {
-            player.getPageManager().openCustomPage(ref, ref.getStore(), new VeinMiningGui(pr, config));
+            player.getPageManager().openCustomPage(ref, ref.getStore(), new VeinMiningGui(pr, config, players));
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.einent.veinmining.config;
+
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+
+import java.util.Arrays;
+
+public class BlockIdFilter {
+
+    private static final byte UNRESOLVED = 0;
+    private static final byte MATCH = 1;
+    private static final byte NO_MATCH = 2;
+
+    private final IdMatcher matcher;
+    private volatile byte[] verdicts = new byte[0];
+
+    public BlockIdFilter(IdMatcher matcher) {
+        this.matcher = matcher;
+    }
+
+    public boolean isEmpty() {
+        return matcher.isEmpty();
+    }
+
+    public boolean matches(int blockIndex) {
+        if (blockIndex < 0 || matcher.isEmpty()) return false;
+        byte[] v = verdicts;
+        if (blockIndex < v.length && v[blockIndex] != UNRESOLVED) return v[blockIndex] == MATCH;
+        return resolve(blockIndex);
+    }
+
+    public synchronized void invalidate() {
+        verdicts = new byte[0];
+    }
+
+    private synchronized boolean resolve(int blockIndex) {
+        byte[] v = verdicts;
+        if (blockIndex >= v.length) {
+            v = Arrays.copyOf(v, Math.max(blockIndex + 1, v.length * 2));
+        }
+        if (v[blockIndex] == UNRESOLVED) {
+            BlockType type = BlockType.getAssetMap().getAsset(blockIndex);
+            v[blockIndex] = (type != null && matcher.matches(type.getId())) ? MATCH : NO_MATCH;
+        }
+        verdicts = v;
+        return v[blockIndex] == MATCH;
+    }
+}
@@ -0,0 +1,96 @@
+package com.einent.veinmining.config;
+
+import com.hypixel.hytale.codec.ExtraInfo;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.util.Config;
+import org.bson.BsonValue;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+public class ConfigSaver {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final long DEBOUNCE_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final long MAX_DELAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final JsonWriterSettings JSON = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).indent(true).build();
+
+    private final Config<VeinMiningConfig> config;
+    private final Path path;
+    private final Object writeLock = new Object();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "VeinMining-ConfigSaver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> pending;
+    private long dirtySince = -1L;
+    private int failures;
+    private boolean closed;
+
+    public ConfigSaver(Config<VeinMiningConfig> config, Path path) {
+        this.config = config;
+        this.path = path;
+    }
+
+    public synchronized void markDirty() {
+        long now = System.nanoTime();
+        if (dirtySince < 0) dirtySince = now;
+        if (closed) return;
+        long due = Math.min(now + DEBOUNCE_NANOS, dirtySince + MAX_DELAY_NANOS);
+        if (pending != null) pending.cancel(false);
+        pending = executor.schedule(this::flush, Math.max(0L, due - now), TimeUnit.NANOSECONDS);
+    }
+
+    public void flush() {
+        synchronized (this) {
+            if (pending != null) {
+                pending.cancel(false);
+                pending = null;
+            }
+            if (dirtySince < 0) return;
+            dirtySince = -1L;
+        }
+        synchronized (writeLock) {
+            try {
+                write(config.get());
+                synchronized (this) {
+                    failures = 0;
+                }
+            } catch (Exception e) {
+                LOGGER.at(Level.WARNING).log("Failed to save VeinMining config: " + e);
+                retry();
+            }
+        }
+    }
+
+    private synchronized void retry() {
+        if (dirtySince < 0) dirtySince = System.nanoTime();
+        if (closed || pending != null) return;
+        long delay = Math.min(DEBOUNCE_NANOS << Math.min(failures++, 8), MAX_DELAY_NANOS);
+        pending = executor.schedule(this::flush, delay, TimeUnit.NANOSECONDS);
+    }
+
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+        executor.shutdown();
+    }
+
+    private void write(VeinMiningConfig cfg) throws IOException {
+        BsonValue value = VeinMiningConfig.CODEC.encode(cfg, ExtraInfo.THREAD_LOCAL.get());
+        String json = value.asDocument().toJson(JSON);
+        AtomicFiles.write(path, ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
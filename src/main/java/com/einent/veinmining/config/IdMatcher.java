@@ -0,0 +1,76 @@
+package com.einent.veinmining.config;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+public class IdMatcher {
+
+    public static final IdMatcher NONE = new IdMatcher(Set.of(), List.of(), List.of());
+
+    private final Set<String> exact;
+    private final List<String> substrings;
+    private final List<Pattern> globs;
+
+    private IdMatcher(Set<String> exact, List<String> substrings, List<Pattern> globs) {
+        this.exact = exact;
+        this.substrings = substrings;
+        this.globs = globs;
+    }
+
+    public static IdMatcher compile(String[] rules, boolean plainAsSubstring) {
+        if (rules == null || rules.length == 0) return NONE;
+        Set<String> exact = new HashSet<>();
+        List<String> substrings = new ArrayList<>();
+        List<Pattern> globs = new ArrayList<>();
+        for (String rule : rules) {
+            if (rule == null) continue;
+            String r = rule.trim();
+            if (r.isEmpty()) continue;
+            if (r.indexOf('*') >= 0 || r.indexOf('?') >= 0) {
+                globs.add(toPattern(r));
+            } else if (plainAsSubstring) {
+                substrings.add(r);
+            } else {
+                exact.add(r);
+            }
+        }
+        return new IdMatcher(Set.copyOf(exact), List.copyOf(substrings), List.copyOf(globs));
+    }
+
+    public boolean isEmpty() {
+        return exact.isEmpty() && substrings.isEmpty() && globs.isEmpty();
+    }
+
+    public boolean matches(String id) {
+        if (id == null) return false;
+        if (exact.contains(id)) return true;
+        for (String s : substrings) {
+            if (id.contains(s)) return true;
+        }
+        for (Pattern p : globs) {
+            if (p.matcher(id).matches()) return true;
+        }
+        return false;
+    }
+
+    private static Pattern toPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) regex.append(Pattern.quote(literal.toString()));
+        return Pattern.compile(regex.toString());
+    }
+}
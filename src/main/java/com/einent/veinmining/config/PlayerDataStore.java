@@ -0,0 +1,403 @@
+package com.einent.veinmining.config;
+
+import com.einent.veinmining.config.VeinMiningConfig.PlayerModeEntry;
+import com.hypixel.hytale.codec.ExtraInfo;
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import com.hypixel.hytale.codec.codecs.array.ArrayCodec;
+import com.hypixel.hytale.logger.HytaleLogger;
+import org.bson.BsonDocument;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+public class PlayerDataStore {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final long FLUSH_INTERVAL_SECONDS = 5L;
+    private static final PlayerModeEntry DEFAULTS = new PlayerModeEntry();
+    private static final JsonWriterSettings JSON = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).indent(true).build();
+
+    // "VMPD", format version, record count; then 16 bytes of UUID and 4 ordinal bytes per player.
+    private static final int MAGIC = 0x564D5044;
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 10;
+    private static final int RECORD_BYTES = 20;
+    // On-disk codes; append only, never reorder.
+    private static final List<String> MODES = List.of("ores", "all", "off");
+    private static final List<String> PATTERNS = List.of("freeform", "tunnel3", "cube", "tunnel2", "wall3", "tunnel1", "wall5", "diagonal");
+    private static final List<String> ORIENTATIONS = List.of("block", "player");
+    private static final List<String> ACTIVATIONS = List.of("walking", "crouching", "always");
+
+    private final Path directory;
+    private final Map<String, PlayerModeEntry> entries = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Map<String, CompletableFuture<Void>> loads = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<PlayerModeEntry>>> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "VeinMining-PlayerData");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PlayerDataStore(Path directory) {
+        this.directory = directory;
+        executor.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public String getTargetMode(String uuid) { return get(uuid).targetMode; }
+    public void setTargetMode(String uuid, String mode) { update(uuid, e -> e.targetMode = mode); }
+    public String getPattern(String uuid) { return get(uuid).pattern; }
+    public void setPattern(String uuid, String pattern) { update(uuid, e -> e.pattern = pattern); }
+    public String getOrientation(String uuid) { return get(uuid).orientation; }
+    public void setOrientation(String uuid, String orientation) { update(uuid, e -> e.orientation = orientation); }
+    public String getActivation(String uuid) { return get(uuid).activationKey; }
+    public void setActivation(String uuid, String activation) { update(uuid, e -> e.activationKey = activation); }
+
+    private PlayerModeEntry get(String uuid) {
+        PlayerModeEntry entry = entries.get(uuid);
+        return entry != null ? entry : DEFAULTS;
+    }
+
+    // Changes made before the stored record arrives are queued and replayed onto it, never onto defaults.
+    private void update(String uuid, Consumer<PlayerModeEntry> change) {
+        pending.compute(uuid, (id, changes) -> {
+            PlayerModeEntry entry = entries.get(id);
+            if (entry == null) {
+                if (changes == null) changes = new ArrayList<>();
+                changes.add(change);
+                return changes;
+            }
+            change.accept(entry);
+            dirty.add(id);
+            return changes;
+        });
+        load(uuid);
+    }
+
+    public boolean ensureLoaded(String uuid) {
+        if (entries.containsKey(uuid)) return true;
+        load(uuid);
+        return false;
+    }
+
+    public CompletableFuture<Void> load(String uuid) {
+        if (entries.containsKey(uuid)) return CompletableFuture.completedFuture(null);
+        return loads.computeIfAbsent(uuid, id -> CompletableFuture.runAsync(() -> finishLoad(id), executor));
+    }
+
+    private void finishLoad(String uuid) {
+        PlayerModeEntry stored = null;
+        try {
+            stored = find(uuid);
+        } catch (Exception e) {
+            LOGGER.at(Level.WARNING).log("Failed to load VeinMining settings for " + uuid + ": " + e);
+        }
+        PlayerModeEntry entry = stored != null ? stored : new PlayerModeEntry(uuid);
+        pending.compute(uuid, (id, changes) -> {
+            if (entries.containsKey(id)) return null;
+            if (changes != null) {
+                changes.forEach(c -> c.accept(entry));
+                dirty.add(id);
+            }
+            entries.put(id, entry);
+            return null;
+        });
+        loads.remove(uuid);
+    }
+
+    public void evict(String uuid) {
+        executor.execute(() -> {
+            flushQuietly();
+            pending.compute(uuid, (id, changes) -> {
+                if (changes == null && !dirty.contains(id)) entries.remove(id);
+                return changes;
+            });
+        });
+    }
+
+    public synchronized void migrate(PlayerModeEntry[] legacy) throws IOException {
+        merge(legacy, false);
+    }
+
+    public Path getExportPath() {
+        return directory.resolveSibling("player-data.json");
+    }
+
+    public CompletableFuture<Integer> exportJson() {
+        Path path = getExportPath();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                synchronized (this) {
+                    flush();
+                    List<PlayerModeEntry> all = new ArrayList<>();
+                    for (int shard = 0; shard < 256; shard++) {
+                        all.addAll(readShard(String.format("%02x", shard)).values());
+                    }
+                    Shard file = new Shard();
+                    file.players = all.toArray(new PlayerModeEntry[0]);
+                    String json = Shard.CODEC.encode(file, ExtraInfo.THREAD_LOCAL.get()).asDocument().toJson(JSON);
+                    AtomicFiles.write(path, ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+                    return all.size();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, executor);
+    }
+
+    public CompletableFuture<Integer> importJson() {
+        Path path = getExportPath();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                synchronized (this) {
+                    PlayerModeEntry[] imported = readJson(path);
+                    flush();
+                    merge(imported, true);
+                    for (PlayerModeEntry e : imported) {
+                        if (e != null && e.uuid != null && entries.containsKey(e.uuid)) entries.put(e.uuid, e.copy());
+                    }
+                    return imported.length;
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, executor);
+    }
+
+    public synchronized void flush() throws IOException {
+        if (dirty.isEmpty()) return;
+        Map<String, List<String>> byShard = new HashMap<>();
+        for (String uuid : dirty) {
+            byShard.computeIfAbsent(shardOf(uuid), k -> new ArrayList<>()).add(uuid);
+        }
+        int failed = 0;
+        for (Map.Entry<String, List<String>> shard : byShard.entrySet()) {
+            try {
+                Map<String, PlayerModeEntry> stored = readShardOrQuarantine(shard.getKey());
+                for (String uuid : shard.getValue()) {
+                    dirty.remove(uuid);
+                    PlayerModeEntry e = entries.get(uuid);
+                    if (e == null) continue;
+                    if (e.isDefault()) stored.remove(uuid);
+                    else stored.put(uuid, e.copy());
+                }
+                writeShard(shard.getKey(), stored);
+            } catch (Exception e) {
+                dirty.addAll(shard.getValue());
+                failed++;
+                LOGGER.at(Level.WARNING).log("Failed to save VeinMining player data shard " + shard.getKey() + ": " + e);
+            }
+        }
+        if (failed > 0) throw new IOException(failed + " player data shard(s) could not be saved");
+    }
+
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            LOGGER.at(Level.WARNING).log("Failed to save VeinMining player settings: " + e);
+        }
+    }
+
+    private void merge(PlayerModeEntry[] incoming, boolean overwrite) throws IOException {
+        Map<String, List<PlayerModeEntry>> byShard = new HashMap<>();
+        for (PlayerModeEntry e : incoming) {
+            if (e == null || e.uuid == null) continue;
+            byShard.computeIfAbsent(shardOf(e.uuid), k -> new ArrayList<>()).add(e);
+        }
+        int failed = 0;
+        for (Map.Entry<String, List<PlayerModeEntry>> shard : byShard.entrySet()) {
+            try {
+                Map<String, PlayerModeEntry> stored = readShardOrQuarantine(shard.getKey());
+                for (PlayerModeEntry e : shard.getValue()) {
+                    if (!overwrite && stored.containsKey(e.uuid)) continue;
+                    if (e.isDefault()) stored.remove(e.uuid);
+                    else stored.put(e.uuid, e);
+                }
+                writeShard(shard.getKey(), stored);
+            } catch (Exception e) {
+                failed++;
+                LOGGER.at(Level.WARNING).log("Failed to merge VeinMining player data shard " + shard.getKey() + ": " + e);
+            }
+        }
+        if (failed > 0) throw new IOException(failed + " player data shard(s) could not be merged");
+    }
+
+    private Map<String, PlayerModeEntry> readShardOrQuarantine(String shard) throws IOException {
+        try {
+            return readShard(shard);
+        } catch (CorruptShardException e) {
+            LOGGER.at(Level.WARNING).log("Corrupt VeinMining player data shard " + shard + ", moving it aside: " + e.getMessage());
+            Files.move(e.path, e.path.resolveSibling(e.path.getFileName() + ".corrupt-" + System.currentTimeMillis()));
+            return readShardOrQuarantine(shard);
+        }
+    }
+
+    private static String shardOf(String uuid) {
+        return uuid.length() >= 2 ? uuid.substring(0, 2).toLowerCase() : "00";
+    }
+
+    private PlayerModeEntry find(String uuid) throws IOException {
+        UUID id;
+        try {
+            id = UUID.fromString(uuid);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String shard = shardOf(uuid);
+        ByteBuffer buf = readBinary(shard);
+        if (buf == null) return readJsonShard(shard).get(uuid);
+
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        while (buf.remaining() >= RECORD_BYTES) {
+            int at = buf.position();
+            if (buf.getLong(at) == msb && buf.getLong(at + 8) == lsb) return decode(buf);
+            buf.position(at + RECORD_BYTES);
+        }
+        return null;
+    }
+
+    private Map<String, PlayerModeEntry> readShard(String shard) throws IOException {
+        ByteBuffer buf = readBinary(shard);
+        if (buf == null) return readJsonShard(shard);
+        Map<String, PlayerModeEntry> stored = new LinkedHashMap<>();
+        while (buf.remaining() >= RECORD_BYTES) {
+            PlayerModeEntry e = decode(buf);
+            stored.put(e.uuid, e);
+        }
+        return stored;
+    }
+
+    private ByteBuffer readBinary(String shard) throws IOException {
+        Path path = directory.resolve(shard + ".bin");
+        if (!Files.exists(path)) return null;
+        ByteBuffer buf = AtomicFiles.read(path);
+        if (buf.remaining() < HEADER_BYTES || buf.getInt() != MAGIC) {
+            throw new CorruptShardException(path, "Not a VeinMining player data file: " + path);
+        }
+        short version = buf.getShort();
+        if (version != VERSION) throw new IOException("Unsupported VeinMining player data version " + version + " in " + path);
+        int count = buf.getInt();
+        if (count < 0 || (long) count * RECORD_BYTES > buf.remaining()) throw new CorruptShardException(path, "Truncated VeinMining player data file: " + path);
+        buf.limit(buf.position() + count * RECORD_BYTES);
+        return buf;
+    }
+
+    private void writeShard(String shard, Map<String, PlayerModeEntry> stored) throws IOException {
+        Path path = directory.resolve(shard + ".bin");
+        List<UUID> ids = new ArrayList<>(stored.size());
+        List<PlayerModeEntry> records = new ArrayList<>(stored.size());
+        for (PlayerModeEntry e : stored.values()) {
+            try {
+                ids.add(UUID.fromString(e.uuid));
+                records.add(e);
+            } catch (IllegalArgumentException ex) {
+                LOGGER.at(Level.WARNING).log("Dropping VeinMining settings with invalid UUID: " + e.uuid);
+            }
+        }
+
+        if (records.isEmpty()) {
+            Files.deleteIfExists(path);
+        } else {
+            ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + records.size() * RECORD_BYTES);
+            buf.putInt(MAGIC).putShort(VERSION).putInt(records.size());
+            for (int i = 0; i < records.size(); i++) {
+                PlayerModeEntry e = records.get(i);
+                buf.putLong(ids.get(i).getMostSignificantBits()).putLong(ids.get(i).getLeastSignificantBits());
+                buf.put(ordinal(MODES, e.targetMode));
+                buf.put(ordinal(PATTERNS, e.pattern));
+                buf.put(ordinal(ORIENTATIONS, e.orientation));
+                buf.put(ordinal(ACTIVATIONS, e.activationKey));
+            }
+            buf.flip();
+            AtomicFiles.write(path, buf);
+        }
+        Files.deleteIfExists(directory.resolve(shard + ".json"));
+    }
+
+    private static PlayerModeEntry decode(ByteBuffer buf) {
+        PlayerModeEntry e = new PlayerModeEntry(new UUID(buf.getLong(), buf.getLong()).toString());
+        e.targetMode = valueAt(MODES, buf.get(), DEFAULTS.targetMode);
+        e.pattern = valueAt(PATTERNS, buf.get(), DEFAULTS.pattern);
+        e.orientation = valueAt(ORIENTATIONS, buf.get(), DEFAULTS.orientation);
+        e.activationKey = valueAt(ACTIVATIONS, buf.get(), DEFAULTS.activationKey);
+        return e;
+    }
+
+    private static byte ordinal(List<String> values, String value) {
+        return (byte) (value != null ? values.indexOf(value.toLowerCase()) : -1);
+    }
+
+    private static String valueAt(List<String> values, byte ordinal, String fallback) {
+        return ordinal >= 0 && ordinal < values.size() ? values.get(ordinal) : fallback;
+    }
+
+    private Map<String, PlayerModeEntry> readJsonShard(String shard) throws IOException {
+        Map<String, PlayerModeEntry> stored = new LinkedHashMap<>();
+        Path path = directory.resolve(shard + ".json");
+        if (!Files.exists(path)) return stored;
+        PlayerModeEntry[] players;
+        try {
+            players = readJson(path);
+        } catch (RuntimeException e) {
+            throw new CorruptShardException(path, "Malformed VeinMining player data file " + path + ": " + e);
+        }
+        for (PlayerModeEntry e : players) {
+            if (e != null && e.uuid != null) stored.put(e.uuid, e);
+        }
+        return stored;
+    }
+
+    private static PlayerModeEntry[] readJson(Path path) throws IOException {
+        Shard file = Shard.CODEC.decode(BsonDocument.parse(Files.readString(path, StandardCharsets.UTF_8)), ExtraInfo.THREAD_LOCAL.get());
+        return file != null && file.players != null ? file.players : new PlayerModeEntry[0];
+    }
+
+    private static class CorruptShardException extends IOException {
+        final Path path;
+
+        CorruptShardException(Path path, String message) {
+            super(message);
+            this.path = path;
+        }
+    }
+
+    private static class Shard {
+        PlayerModeEntry[] players;
+
+        static final BuilderCodec<Shard> CODEC = BuilderCodec.builder(Shard.class, Shard::new)
+                .append(new KeyedCodec<>("Players", new ArrayCodec<>(PlayerModeEntry.CODEC, PlayerModeEntry[]::new)), (o, v, i) -> o.players = v, (o, i) -> o.players).add()
+                .build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.einent.veinmining.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class PlayerPolicy {
+
+    public static final List<String> MODES = List.of("ores", "all", "off");
+    public static final List<String> PATTERNS = List.of("freeform", "tunnel3", "cube", "tunnel2", "wall3", "tunnel1", "wall5", "diagonal");
+
+    private final VeinMiningConfig.GroupSettings group;
+    private final boolean admin;
+    private final boolean modEnabled;
+    private final boolean canOpenGui;
+    private final int maxVeinSize;
+    private final int allowedModes;
+    private final int allowedPatterns;
+    private final List<String> allowedModeList;
+
+    PlayerPolicy(VeinMiningConfig.GroupSettings group, boolean admin, boolean modEnabled, boolean canOpenGui, int maxVeinSize, int allowedModes, int allowedPatterns) {
+        this.group = group;
+        this.admin = admin;
+        this.modEnabled = modEnabled;
+        this.canOpenGui = canOpenGui;
+        this.maxVeinSize = maxVeinSize;
+        this.allowedModes = allowedModes;
+        this.allowedPatterns = allowedPatterns;
+
+        List<String> modes = new ArrayList<>();
+        for (int i = 0; i < MODES.size(); i++) {
+            if ((allowedModes & (1 << i)) != 0) modes.add(MODES.get(i));
+        }
+        this.allowedModeList = Collections.unmodifiableList(modes);
+    }
+
+    public VeinMiningConfig.GroupSettings getGroup() { return group; }
+    public boolean isAdmin() { return admin; }
+    public boolean isModEnabled() { return modEnabled; }
+    public boolean canOpenGui() { return canOpenGui; }
+    public int getMaxVeinSize() { return maxVeinSize; }
+    public List<String> getAllowedModes() { return allowedModeList; }
+
+    public boolean isModeAllowed(String mode) {
+        int i = mode != null ? MODES.indexOf(mode.toLowerCase()) : -1;
+        return i >= 0 && (allowedModes & (1 << i)) != 0;
+    }
+
+    public boolean isPatternAllowed(String pattern) {
+        int i = pattern != null ? PATTERNS.indexOf(pattern.toLowerCase()) : -1;
+        return i >= 0 && (allowedPatterns & (1 << i)) != 0;
+    }
+
+    public String validateTargetMode(String mode) {
+        return isModeAllowed(mode) ? mode : "off";
+    }
+
+    public String validatePattern(String pattern) {
+        return isPatternAllowed(pattern) ? pattern : "freeform";
+    }
+}
@@ -4,19 +4,19 @@ import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
 import com.hypixel.hytale.codec.codecs.array.ArrayCodec;
-import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.logger.HytaleLogger;
-import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.permissions.PermissionsModule;
 import com.hypixel.hytale.server.core.permissions.provider.PermissionProvider;
-import com.hypixel.hytale.server.core.universe.PlayerRef;
-import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 
 public class VeinMiningConfig {
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final Set<String> ONLINE = ConcurrentHashMap.newKeySet();
 
     private boolean masterModEnabled = true;
     private boolean masterGuiEnabled = true;
@@ -31,14 +31,24 @@ public class VeinMiningConfig {
     private double durabilityMultiplier = 1.0;
     private String dropMode = "break";
     private boolean bundleDrops = false;
+    private int maxDropEntitiesPerVein = 64;
+    private int maxDropEntitiesPerChunk = 16;
     private boolean requireValidTool = true;
     private boolean instantBreak = false;
+    private int breakBlocksPerTick = 24;
+    private int breakTickBudgetMicros = 2000;
+    private boolean adaptiveBreak = true;
+    private int breakMaxBlocksPerTick = 128;
+    private boolean adaptiveVeinLimit = false;
+    private boolean boundaryBlockUpdates = true;
+    private boolean streamingBreak = false;
     private boolean enableQuickSwitch = true;
     private String[] validTools = new String[] { "Pickaxe", "Hatchet", "Shovel", "Shears" };
 
     private final Map<String, GroupSettings> groups = new HashMap<>();
-    private final Map<String, PlayerOverride> playerOverrides = new HashMap<>();
-    private final Map<String, PlayerModeEntry> playerSettingsMap = new HashMap<>();
+    private final Map<String, PlayerOverride> playerOverrides = new ConcurrentHashMap<>();
+    private PlayerModeEntry[] legacyPlayerData;
+    private volatile Snapshot snapshot;
 
     public VeinMiningConfig() {
         String[] allModes = new String[]{"ores", "all", "off"};
@@ -58,211 +68,61 @@ public class VeinMiningConfig {
             .append(new KeyedCodec<>("DurabilityMultiplier", Codec.DOUBLE), (c, v, i) -> c.durabilityMultiplier = v, (c, i) -> c.durabilityMultiplier).add()
             .append(new KeyedCodec<>("DropMode", Codec.STRING), (c, v, i) -> c.dropMode = v, (c, i) -> c.dropMode).add()
             .append(new KeyedCodec<>("BundleDrops", Codec.BOOLEAN), (c, v, i) -> c.bundleDrops = v, (c, i) -> c.bundleDrops).add()
+            .append(new KeyedCodec<>("MaxDropEntitiesPerVein", Codec.INTEGER), (c, v, i) -> c.maxDropEntitiesPerVein = v, (c, i) -> c.maxDropEntitiesPerVein).add()
+            .append(new KeyedCodec<>("MaxDropEntitiesPerChunk", Codec.INTEGER), (c, v, i) -> c.maxDropEntitiesPerChunk = v, (c, i) -> c.maxDropEntitiesPerChunk).add()
             .append(new KeyedCodec<>("RequireValidTool", Codec.BOOLEAN), (c, v, i) -> c.requireValidTool = v, (c, i) -> c.requireValidTool).add()
             .append(new KeyedCodec<>("InstantBreak", Codec.BOOLEAN), (c, v, i) -> c.instantBreak = v, (c, i) -> c.instantBreak).add()
+            .append(new KeyedCodec<>("BreakBlocksPerTick", Codec.INTEGER), (c, v, i) -> c.breakBlocksPerTick = v, (c, i) -> c.breakBlocksPerTick).add()
+            .append(new KeyedCodec<>("BreakTickBudgetMicros", Codec.INTEGER), (c, v, i) -> c.breakTickBudgetMicros = v, (c, i) -> c.breakTickBudgetMicros).add()
+            .append(new KeyedCodec<>("AdaptiveBreak", Codec.BOOLEAN), (c, v, i) -> c.adaptiveBreak = v, (c, i) -> c.adaptiveBreak).add()
+            .append(new KeyedCodec<>("BreakMaxBlocksPerTick", Codec.INTEGER), (c, v, i) -> c.breakMaxBlocksPerTick = v, (c, i) -> c.breakMaxBlocksPerTick).add()
+            .append(new KeyedCodec<>("AdaptiveVeinLimit", Codec.BOOLEAN), (c, v, i) -> c.adaptiveVeinLimit = v, (c, i) -> c.adaptiveVeinLimit).add()
+            .append(new KeyedCodec<>("BoundaryBlockUpdates", Codec.BOOLEAN), (c, v, i) -> c.boundaryBlockUpdates = v, (c, i) -> c.boundaryBlockUpdates).add()
+            .append(new KeyedCodec<>("StreamingBreak", Codec.BOOLEAN), (c, v, i) -> c.streamingBreak = v, (c, i) -> c.streamingBreak).add()
             .append(new KeyedCodec<>("EnableQuickSwitch", Codec.BOOLEAN), (c, v, i) -> c.enableQuickSwitch = v, (c, i) -> c.enableQuickSwitch).add()
-            .append(new KeyedCodec<>("ValidTools", new ArrayCodec<>(Codec.STRING, String[]::new)), (c, v, i) -> c.validTools = v, (c, i) -> c.validTools).add()
+            .append(new KeyedCodec<>("ValidTools", new ArrayCodec<>(Codec.STRING, String[]::new)), (c, v, i) -> c.validTools = v != null ? v : new String[0], (c, i) -> c.validTools).add()
             .append(new KeyedCodec<>("Groups", new ArrayCodec<>(GroupSettings.CODEC, GroupSettings[]::new)), (c, v, i) -> c.setGroupsFromArray(v), (c, i) -> c.getGroupsAsArray()).add()
             .append(new KeyedCodec<>("PlayerOverrides", new ArrayCodec<>(PlayerOverride.CODEC, PlayerOverride[]::new)), (c, v, i) -> c.setOverridesFromArray(v), (c, i) -> c.getOverridesAsArray()).add()
-            .append(new KeyedCodec<>("PlayerData", new ArrayCodec<>(PlayerModeEntry.CODEC, PlayerModeEntry[]::new)), (c, v, i) -> c.setDataFromArray(v), (c, i) -> c.getDataAsArray()).add()
+            .append(new KeyedCodec<>("PlayerData", new ArrayCodec<>(PlayerModeEntry.CODEC, PlayerModeEntry[]::new)), (c, v, i) -> c.legacyPlayerData = v, (c, i) -> c.legacyPlayerData).add()
             .build();
 
-    public GroupSettings resolveGroup(Player player) {
-        Ref<EntityStore> ref = player.getReference();
-        if (ref == null || !ref.isValid()) return groups.get("default");
-        PlayerRef pr = ref.getStore().getComponent(ref, PlayerRef.getComponentType());
-        if (pr == null) return groups.get("default");
-        UUID uuid = pr.getUuid();
-        PermissionProvider provider = PermissionsModule.get().getFirstPermissionProvider();
-        Set<String> playerDirectNodes = provider.getUserPermissions(uuid);
-        Set<String> playerGroups = PermissionsModule.get().getGroupsForUser(uuid);
-        GroupSettings best = groups.get("default");
-        int highestPriority = best.priority;
-        for (GroupSettings g : groups.values()) {
-            if (g.name == null || g.name.equalsIgnoreCase("default")) continue;
-            String rankNode = "veinmining.group." + g.name.toLowerCase();
-            boolean hasNode = false;
-            if (playerDirectNodes != null && playerDirectNodes.contains(rankNode)) {
-                hasNode = true;
-            } else {
-                for (String groupName : playerGroups) {
-                    Set<String> groupNodes = provider.getGroupPermissions(groupName);
-                    if (groupNodes != null && groupNodes.contains(rankNode)) {
-                        hasNode = true;
-                        break;
-                    }
-                }
-            }
-            if (hasNode && g.priority > highestPriority) {
-                highestPriority = g.priority;
-                best = g;
-            }
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null) return current;
+        synchronized (this) {
+            if (snapshot == null) snapshot = new Snapshot(this, null, null);
+            return snapshot;
         }
-        return best;
     }
 
-    public boolean isModEnabled(String uuid, boolean isAdmin) {
-        if (!masterModEnabled) return false;
-        PlayerOverride ov = playerOverrides.get(uuid);
-        if (ov != null && ov.modEnabled != null) return ov.modEnabled;
-        if (isAdmin) return true;
-        PermissionProvider provider = PermissionsModule.get().getFirstPermissionProvider();
-        try {
-            UUID id = UUID.fromString(uuid);
-            Set<String> playerGroups = PermissionsModule.get().getGroupsForUser(id);
-            GroupSettings best = groups.get("default");
-            int highestPriority = best.priority;
-            for (GroupSettings g : groups.values()) {
-                if (g.name == null || g.name.equalsIgnoreCase("default")) continue;
-                String rankNode = "veinmining.group." + g.name.toLowerCase();
-                Set<String> playerDirectNodes = provider.getUserPermissions(id);
-                boolean hasNode = (playerDirectNodes != null && playerDirectNodes.contains(rankNode));
-                if (!hasNode) {
-                    for (String groupName : playerGroups) {
-                        Set<String> groupNodes = provider.getGroupPermissions(groupName);
-                        if (groupNodes != null && groupNodes.contains(rankNode)) {
-                            hasNode = true;
-                            break;
-                        }
-                    }
-                }
-                if (hasNode && g.priority > highestPriority) {
-                    highestPriority = g.priority;
-                    best = g;
-                }
-            }
-            return best.modEnabled;
-        } catch (Exception e) {
-            return groups.get("default").modEnabled;
-        }
+    public Snapshot publish() {
+        return publish(snapshot, null);
     }
 
-    public int getEffectiveLimit(String uuid, GroupSettings group, boolean isAdmin) {
-        PlayerOverride ov = playerOverrides.get(uuid);
-        if (ov != null && ov.maxVeinSize != null) return Math.min(ov.maxVeinSize, masterMaxLimit);
-        if (group != null) return Math.min(group.maxVeinSize, masterMaxLimit);
-
-        if (isAdmin) {
-            return Math.min(groups.get("default").maxVeinSize, masterMaxLimit);
-        }
-        return Math.min(groups.get("default").maxVeinSize, masterMaxLimit);
+    public Snapshot publishFrom(Snapshot previous) {
+        return publish(previous, null);
     }
 
-    public boolean canOpenGui(String uuid, GroupSettings group, boolean isAdmin) {
-        if (!masterGuiEnabled && !isAdmin) return false;
-        PlayerOverride ov = playerOverrides.get(uuid);
-        if (ov != null && ov.canOpenGui != null) return ov.canOpenGui;
-        if (group != null) return group.canOpenGui;
-        if (isAdmin) return true;
-        return groups.get("default").canOpenGui;
-    }
-
-    public List<String> getEffectiveAllowedModes(String uuid, GroupSettings group, boolean isAdmin) {
-        Set<String> modes = new HashSet<>();
-
-        PlayerOverride ov = playerOverrides.get(uuid);
-        if (ov != null && ov.allowedModes != null) {
-            modes.addAll(Arrays.asList(ov.allowedModes));
-        }
-        else if (group != null && group.allowedModes != null && group.allowedModes.length > 0) {
-            modes.addAll(Arrays.asList(group.allowedModes));
-        }
-        else {
-            modes.add("ores");
-            modes.add("all");
-            modes.add("off");
-        }
-
-        try {
-            UUID id = UUID.fromString(uuid);
-            PermissionProvider provider = PermissionsModule.get().getFirstPermissionProvider();
-            if (provider != null) {
-                Set<String> perms = provider.getUserPermissions(id);
-                if (perms != null) {
-                    if (perms.contains("veinmining.mode.all") || perms.contains("veinmining.mode.*")) modes.add("all");
-                    if (perms.contains("veinmining.mode.ores") || perms.contains("veinmining.mode.*")) modes.add("ores");
-                }
-            }
-        } catch (Exception ignored) {}
-
-        if (!modes.contains("off")) modes.add("off");
-        return new ArrayList<>(modes);
-    }
-
-    public boolean isPatternAllowed(String uuid, String patternId, GroupSettings group, boolean isAdmin) {
-        for (String s : globalBlacklistPatterns) {
-            if (s.equalsIgnoreCase(patternId)) return false;
-        }
-
-        try {
-            UUID id = UUID.fromString(uuid);
-            PermissionProvider provider = PermissionsModule.get().getFirstPermissionProvider();
-            if (provider != null) {
-                Set<String> perms = provider.getUserPermissions(id);
-                if (perms != null) {
-                    if (perms.contains("veinmining.pattern." + patternId.toLowerCase()) || perms.contains("veinmining.pattern.*")) {
-                        return true;
-                    }
-                }
-            }
-        } catch (Exception ignored) {}
-
-        PlayerOverride ov = playerOverrides.get(uuid);
-        if (ov != null && ov.allowedPatterns != null) {
-            for (String p : ov.allowedPatterns) if (p.equalsIgnoreCase(patternId)) return true;
-            return false;
-        }
-        if (group != null && group.allowedPatterns != null && group.allowedPatterns.length > 0) {
-            for (String p : group.allowedPatterns) if (p.equalsIgnoreCase(patternId)) return true;
-            return false;
-        }
-        return true;
-    }
-
-    public String getValidatedTargetMode(String uuid, GroupSettings group, boolean isAdmin) {
-        String mode = getPlayerTargetMode(uuid);
-        List<String> allowed = getEffectiveAllowedModes(uuid, group, isAdmin);
-        if (allowed.contains(mode)) return mode;
-        if (allowed.contains("off")) return "off";
-        return allowed.isEmpty() ? "off" : allowed.get(0);
-    }
-
-    public String getValidatedPattern(String uuid, GroupSettings group, boolean isAdmin) {
-        String pattern = getPlayerPattern(uuid);
-        if (isPatternAllowed(uuid, pattern, group, isAdmin)) return pattern;
-        return "freeform";
+    private synchronized Snapshot publish(Snapshot previous, String changedUuid) {
+        Snapshot next = new Snapshot(this, previous != null ? previous : snapshot, changedUuid);
+        snapshot = next;
+        next.refreshOnline(changedUuid);
+        return next;
     }
 
     public void setPlayerOverride(String uuid, Integer limit, Boolean gui, Boolean enabled, String[] modes, String[] patterns) {
-        PlayerOverride ov = playerOverrides.computeIfAbsent(uuid, PlayerOverride::new);
+        PlayerOverride ov = new PlayerOverride(uuid);
         ov.maxVeinSize = limit;
         ov.canOpenGui = gui;
         ov.modEnabled = enabled;
         ov.allowedModes = modes;
         ov.allowedPatterns = patterns;
+        playerOverrides.put(uuid, ov);
+        publish(snapshot, uuid);
     }
 
-    private PlayerModeEntry getEntry(String uuid) { return playerSettingsMap.computeIfAbsent(uuid, PlayerModeEntry::new); }
-    public String getPlayerTargetMode(String uuid) { return getEntry(uuid).targetMode; }
-    public void setPlayerTargetMode(String uuid, String mode) { getEntry(uuid).targetMode = mode; }
-    public String getPlayerPattern(String uuid) { return getEntry(uuid).pattern; }
-    public void setPlayerPattern(String uuid, String pattern) { getEntry(uuid).pattern = pattern; }
-    public String getPlayerOrientation(String uuid) { return getEntry(uuid).orientation; }
-    public void setPlayerOrientation(String uuid, String orientation) { getEntry(uuid).orientation = orientation; }
-    public String getPlayerActivation(String uuid) { return getEntry(uuid).activationKey; }
-    public void setPlayerActivation(String uuid, String activation) { getEntry(uuid).activationKey = activation; }
-
-    public List<String> getBlockWhitelist() { return blockWhitelist != null ? Arrays.asList(blockWhitelist) : new ArrayList<>(); }
-    public List<String> getBlockBlacklist() { return blockBlacklist != null ? Arrays.asList(blockBlacklist) : new ArrayList<>(); }
-    public String getDropMode() { return dropMode; }
-    public boolean isBundleDrops() { return bundleDrops; }
-    public double getDurabilityMultiplier() { return durabilityMultiplier; }
-    public boolean isRequireValidTool() { return requireValidTool; }
-    public List<String> getValidTools() { return Arrays.asList(validTools); }
-    public boolean isInstantBreak() { return instantBreak; }
-    public boolean isQuickSwitchEnabled() { return enableQuickSwitch; }
-    public boolean isShowPatternsAboveLimit() { return showPatternsAboveLimit; }
-    public boolean isMasterSoundEnabled() { return masterSoundEnabled; }
+    public PlayerModeEntry[] getLegacyPlayerData() { return legacyPlayerData; }
+    public void clearLegacyPlayerData() { legacyPlayerData = null; }
 
     private void setGroupsFromArray(GroupSettings[] array) {
         groups.clear();
@@ -283,11 +143,240 @@ public class VeinMiningConfig {
     }
     private PlayerOverride[] getOverridesAsArray() { return playerOverrides.values().toArray(new PlayerOverride[0]); }
 
-    private void setDataFromArray(PlayerModeEntry[] array) {
-        playerSettingsMap.clear();
-        if (array != null) for (PlayerModeEntry e : array) playerSettingsMap.put(e.uuid, e);
+    public static final class Snapshot {
+        private final boolean masterModEnabled;
+        private final boolean masterGuiEnabled;
+        private final boolean masterSoundEnabled;
+        private final int masterMaxLimit;
+        private final boolean showPatternsAboveLimit;
+        private final String[] globalBlacklistPatterns;
+        private final BlockIdFilter blockWhitelistFilter;
+        private final BlockIdFilter blockBlacklistFilter;
+        private final double durabilityMultiplier;
+        private final String dropMode;
+        private final boolean bundleDrops;
+        private final int maxDropEntitiesPerVein;
+        private final int maxDropEntitiesPerChunk;
+        private final boolean requireValidTool;
+        private final boolean instantBreak;
+        private final int breakBlocksPerTick;
+        private final int breakTickBudgetMicros;
+        private final boolean adaptiveBreak;
+        private final int breakMaxBlocksPerTick;
+        private final boolean adaptiveVeinLimit;
+        private final boolean boundaryBlockUpdates;
+        private final boolean streamingBreak;
+        private final boolean enableQuickSwitch;
+        private final IdMatcher validToolMatcher;
+        private final Map<String, Boolean> validToolVerdicts = new ConcurrentHashMap<>();
+        private final GroupSettings defaultGroup;
+        private final List<GroupSettings> rankedGroups;
+        private final Map<String, PlayerOverride> playerOverrides;
+        private final Map<String, PlayerPolicy> policies = new ConcurrentHashMap<>();
+        private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+        private final PlayerPolicy pending;
+        private volatile long policyGeneration;
+
+        private Snapshot(VeinMiningConfig c, Snapshot previous, String changedUuid) {
+            this.masterModEnabled = c.masterModEnabled;
+            this.masterGuiEnabled = c.masterGuiEnabled;
+            this.masterSoundEnabled = c.masterSoundEnabled;
+            this.masterMaxLimit = c.masterMaxLimit;
+            this.showPatternsAboveLimit = c.showPatternsAboveLimit;
+            this.globalBlacklistPatterns = c.globalBlacklistPatterns != null ? c.globalBlacklistPatterns.clone() : new String[0];
+            this.blockWhitelistFilter = new BlockIdFilter(IdMatcher.compile(c.blockWhitelist, false));
+            this.blockBlacklistFilter = new BlockIdFilter(IdMatcher.compile(c.blockBlacklist, false));
+            this.durabilityMultiplier = c.durabilityMultiplier;
+            this.dropMode = c.dropMode;
+            this.bundleDrops = c.bundleDrops;
+            this.maxDropEntitiesPerVein = c.maxDropEntitiesPerVein;
+            this.maxDropEntitiesPerChunk = c.maxDropEntitiesPerChunk;
+            this.requireValidTool = c.requireValidTool;
+            this.instantBreak = c.instantBreak;
+            this.breakBlocksPerTick = c.breakBlocksPerTick;
+            this.breakTickBudgetMicros = c.breakTickBudgetMicros;
+            this.adaptiveBreak = c.adaptiveBreak;
+            this.breakMaxBlocksPerTick = c.breakMaxBlocksPerTick;
+            this.adaptiveVeinLimit = c.adaptiveVeinLimit;
+            this.boundaryBlockUpdates = c.boundaryBlockUpdates;
+            this.streamingBreak = c.streamingBreak;
+            this.enableQuickSwitch = c.enableQuickSwitch;
+            this.validToolMatcher = IdMatcher.compile(c.validTools, true);
+
+            GroupSettings fallback = c.groups.get("default");
+            List<GroupSettings> ranked = new ArrayList<>();
+            for (GroupSettings g : c.groups.values()) {
+                if (g.name == null || g.name.equalsIgnoreCase("default")) continue;
+                if (g.priority > fallback.priority) ranked.add(g);
+            }
+            ranked.sort((a, b) -> Integer.compare(b.priority, a.priority));
+            this.defaultGroup = fallback;
+            this.rankedGroups = List.copyOf(ranked);
+            this.playerOverrides = Map.copyOf(c.playerOverrides);
+
+            this.pending = new PlayerPolicy(defaultGroup, false, false, false, 0, 1 << PlayerPolicy.MODES.indexOf("off"), 0);
+
+            if (previous != null) policies.putAll(previous.policies);
+        }
+
+        public PlayerPolicy getPolicy(String uuid) {
+            PlayerPolicy policy = policies.get(uuid);
+            if (policy != null) return policy;
+            UUID id;
+            try {
+                id = UUID.fromString(uuid);
+            } catch (Exception e) {
+                return computePolicy(null);
+            }
+            ONLINE.add(uuid);
+            if (refreshing.add(uuid)) refreshPolicyAsync(id).whenComplete((v, e) -> refreshing.remove(uuid));
+            return pending;
+        }
+
+        public CompletableFuture<Void> refreshPolicyAsync(UUID id) {
+            long generation = policyGeneration;
+            return CompletableFuture.runAsync(() -> {
+                PlayerPolicy policy = computePolicy(id);
+                String uuid = id.toString();
+                if (generation == policyGeneration && ONLINE.contains(uuid)) policies.put(uuid, policy);
+            });
+        }
+
+        public void playerJoined(UUID id) {
+            ONLINE.add(id.toString());
+            refreshPolicyAsync(id);
+        }
+
+        public void playerLeft(String uuid) {
+            ONLINE.remove(uuid);
+            policies.remove(uuid);
+        }
+
+        public void invalidatePolicies() {
+            policyGeneration++;
+            refreshOnline(null);
+        }
+
+        private void refreshOnline(String uuid) {
+            if (uuid != null) {
+                try {
+                    refreshPolicyAsync(UUID.fromString(uuid));
+                } catch (IllegalArgumentException ignored) {}
+                return;
+            }
+            for (String online : ONLINE) refreshPolicyAsync(UUID.fromString(online));
+        }
+
+        private PlayerPolicy computePolicy(UUID id) {
+            Set<String> userNodes = null;
+            Set<String> nodes = new HashSet<>();
+            boolean isAdmin = false;
+            if (id != null) {
+                try {
+                    PermissionsModule permissions = PermissionsModule.get();
+                    PermissionProvider provider = permissions.getFirstPermissionProvider();
+                    isAdmin = permissions.hasPermission(id, "veinmining.admin");
+                    if (provider != null) {
+                        userNodes = provider.getUserPermissions(id);
+                        if (userNodes != null) nodes.addAll(userNodes);
+                        Set<String> playerGroups = permissions.getGroupsForUser(id);
+                        if (playerGroups != null) {
+                            for (String groupName : playerGroups) {
+                                Set<String> groupNodes = provider.getGroupPermissions(groupName);
+                                if (groupNodes != null) nodes.addAll(groupNodes);
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    LOGGER.at(Level.WARNING).log("Failed to resolve VeinMining permissions for " + id + ": " + e);
+                }
+            }
+
+            GroupSettings group = defaultGroup;
+            for (GroupSettings g : rankedGroups) {
+                if (nodes.contains("veinmining.group." + g.name.toLowerCase())) {
+                    group = g;
+                    break;
+                }
+            }
+
+            PlayerOverride ov = id != null ? playerOverrides.get(id.toString()) : null;
+
+            boolean modEnabled;
+            if (!masterModEnabled) modEnabled = false;
+            else if (ov != null && ov.modEnabled != null) modEnabled = ov.modEnabled;
+            else modEnabled = isAdmin || group.modEnabled;
+
+            boolean canOpenGui;
+            if (!masterGuiEnabled && !isAdmin) canOpenGui = false;
+            else if (ov != null && ov.canOpenGui != null) canOpenGui = ov.canOpenGui;
+            else canOpenGui = group.canOpenGui;
+
+            int maxVeinSize = Math.min(ov != null && ov.maxVeinSize != null ? ov.maxVeinSize : group.maxVeinSize, masterMaxLimit);
+
+            String[] modeList = (ov != null && ov.allowedModes != null) ? ov.allowedModes
+                    : (group.allowedModes != null && group.allowedModes.length > 0) ? group.allowedModes : null;
+            int modes = 0;
+            for (int i = 0; i < PlayerPolicy.MODES.size(); i++) {
+                String mode = PlayerPolicy.MODES.get(i);
+                boolean allowed = mode.equals("off")
+                        || modeList == null
+                        || containsIgnoreCase(modeList, mode)
+                        || (userNodes != null && (userNodes.contains("veinmining.mode." + mode) || userNodes.contains("veinmining.mode.*")));
+                if (allowed) modes |= 1 << i;
+            }
+
+            String[] patternList = (ov != null && ov.allowedPatterns != null) ? ov.allowedPatterns
+                    : (group.allowedPatterns != null && group.allowedPatterns.length > 0) ? group.allowedPatterns : null;
+            int patterns = 0;
+            for (int i = 0; i < PlayerPolicy.PATTERNS.size(); i++) {
+                String pattern = PlayerPolicy.PATTERNS.get(i);
+                boolean allowed;
+                if (containsIgnoreCase(globalBlacklistPatterns, pattern)) allowed = false;
+                else if (userNodes != null && (userNodes.contains("veinmining.pattern." + pattern) || userNodes.contains("veinmining.pattern.*"))) allowed = true;
+                else allowed = patternList == null || containsIgnoreCase(patternList, pattern);
+                if (allowed) patterns |= 1 << i;
+            }
+
+            return new PlayerPolicy(group, isAdmin, modEnabled, canOpenGui, maxVeinSize, modes, patterns);
+        }
+
+        private static boolean containsIgnoreCase(String[] values, String value) {
+            for (String v : values) if (v.equalsIgnoreCase(value)) return true;
+            return false;
+        }
+
+        public boolean isBlockBlacklisted(int blockIndex) { return blockBlacklistFilter.matches(blockIndex); }
+        public boolean isBlockWhitelisted(int blockIndex) { return blockWhitelistFilter.isEmpty() || blockWhitelistFilter.matches(blockIndex); }
+
+        public void invalidateBlockIds() {
+            blockWhitelistFilter.invalidate();
+            blockBlacklistFilter.invalidate();
+        }
+
+        public boolean isValidTool(String toolId) {
+            if (toolId == null) return false;
+            return validToolVerdicts.computeIfAbsent(toolId, validToolMatcher::matches);
+        }
+
+        public String getDropMode() { return dropMode; }
+        public boolean isBundleDrops() { return bundleDrops; }
+        public int getMaxDropEntitiesPerVein() { return maxDropEntitiesPerVein; }
+        public int getMaxDropEntitiesPerChunk() { return maxDropEntitiesPerChunk; }
+        public double getDurabilityMultiplier() { return durabilityMultiplier; }
+        public boolean isRequireValidTool() { return requireValidTool; }
+        public boolean isInstantBreak() { return instantBreak; }
+        public int getBreakBlocksPerTick() { return breakBlocksPerTick; }
+        public int getBreakTickBudgetMicros() { return breakTickBudgetMicros; }
+        public boolean isAdaptiveBreak() { return adaptiveBreak; }
+        public int getBreakMaxBlocksPerTick() { return breakMaxBlocksPerTick; }
+        public boolean isAdaptiveVeinLimit() { return adaptiveVeinLimit; }
+        public boolean isBoundaryBlockUpdates() { return boundaryBlockUpdates; }
+        public boolean isStreamingBreak() { return streamingBreak; }
+        public boolean isQuickSwitchEnabled() { return enableQuickSwitch; }
+        public boolean isShowPatternsAboveLimit() { return showPatternsAboveLimit; }
+        public boolean isMasterSoundEnabled() { return masterSoundEnabled; }
     }
-    private PlayerModeEntry[] getDataAsArray() { return playerSettingsMap.values().toArray(new PlayerModeEntry[0]); }
 
     public static class GroupSettings {
         public String name;
@@ -297,6 +386,10 @@ public class VeinMiningConfig {
         public boolean modEnabled;
         public String[] allowedModes;
         public String[] allowedPatterns;
+        public int blocksPerSecond;
+        public int blockBurst;
+        public int groupBlocksPerSecond;
+        public int groupBlockBurst;
 
         public GroupSettings() {}
         public GroupSettings(String name, int priority, int limit, boolean gui, boolean enabled, String[] modes, String[] patterns) {
@@ -311,6 +404,10 @@ public class VeinMiningConfig {
                 .append(new KeyedCodec<>("ModEnabled", Codec.BOOLEAN), (o, v, i) -> o.modEnabled = v, (o, i) -> o.modEnabled).add()
                 .append(new KeyedCodec<>("AllowedModes", new ArrayCodec<>(Codec.STRING, String[]::new)), (o, v, i) -> o.allowedModes = v, (o, i) -> o.allowedModes).add()
                 .append(new KeyedCodec<>("AllowedPatterns", new ArrayCodec<>(Codec.STRING, String[]::new)), (o, v, i) -> o.allowedPatterns = v, (o, i) -> o.allowedPatterns).add()
+                .append(new KeyedCodec<>("BlocksPerSecond", Codec.INTEGER), (o, v, i) -> o.blocksPerSecond = v, (o, i) -> o.blocksPerSecond).add()
+                .append(new KeyedCodec<>("BlockBurst", Codec.INTEGER), (o, v, i) -> o.blockBurst = v, (o, i) -> o.blockBurst).add()
+                .append(new KeyedCodec<>("GroupBlocksPerSecond", Codec.INTEGER), (o, v, i) -> o.groupBlocksPerSecond = v, (o, i) -> o.groupBlocksPerSecond).add()
+                .append(new KeyedCodec<>("GroupBlockBurst", Codec.INTEGER), (o, v, i) -> o.groupBlockBurst = v, (o, i) -> o.groupBlockBurst).add()
                 .build();
     }
 
@@ -345,6 +442,16 @@ public class VeinMiningConfig {
         public PlayerModeEntry() {}
         public PlayerModeEntry(String uuid) { this.uuid = uuid; }
 
+        public boolean isDefault() {
+            return "all".equals(targetMode) && "freeform".equals(pattern) && "block".equals(orientation) && "walking".equals(activationKey);
+        }
+
+        public PlayerModeEntry copy() {
+            PlayerModeEntry e = new PlayerModeEntry(uuid);
+            e.targetMode = targetMode; e.pattern = pattern; e.orientation = orientation; e.activationKey = activationKey;
+            return e;
+        }
+
         public static final BuilderCodec<PlayerModeEntry> CODEC = BuilderCodec.builder(PlayerModeEntry.class, PlayerModeEntry::new)
                 .append(new KeyedCodec<>("UUID", Codec.STRING), (o, v, i) -> o.uuid = v, (o, i) -> o.uuid).add()
                 .append(new KeyedCodec<>("Mode", Codec.STRING), (o, v, i) -> o.targetMode = v, (o, i) -> o.targetMode).add()
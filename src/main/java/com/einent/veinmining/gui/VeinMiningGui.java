@@ -1,5 +1,7 @@
 package com.einent.veinmining.gui;
 
+import com.einent.veinmining.config.PlayerDataStore;
+import com.einent.veinmining.config.PlayerPolicy;
 import com.einent.veinmining.config.VeinMiningConfig;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
@@ -25,10 +27,12 @@ import java.util.List;
 public class VeinMiningGui extends InteractiveCustomUIPage<VeinMiningGui.GuiData> {
 
     private final Config<VeinMiningConfig> config;
+    private final PlayerDataStore players;
 
-    public VeinMiningGui(PlayerRef playerRef, Config<VeinMiningConfig> config) {
+    public VeinMiningGui(PlayerRef playerRef, Config<VeinMiningConfig> config, PlayerDataStore players) {
         super(playerRef, CustomPageLifetime.CanDismiss, GuiData.CODEC);
         this.config = config;
+        this.players = players;
     }
 
     @Override
@@ -58,28 +62,25 @@ public class VeinMiningGui extends InteractiveCustomUIPage<VeinMiningGui.GuiData
     }
 
     private void setInitialValues(Ref<EntityStore> ref, UICommandBuilder ui, UIEventBuilder events, Store<EntityStore> store) {
-        updateVisuals(ref, ui, events, store);
+        updateVisuals(ref, ui, events, store, config.get().snapshot());
     }
 
-    private void updateVisuals(Ref<EntityStore> ref, UICommandBuilder ui, UIEventBuilder events, Store<EntityStore> store) {
+    private void updateVisuals(Ref<EntityStore> ref, UICommandBuilder ui, UIEventBuilder events, Store<EntityStore> store, VeinMiningConfig.Snapshot cfg) {
         UUIDComponent uuidComp = store.getComponent(ref, UUIDComponent.getComponentType());
         Player player = store.getComponent(ref, Player.getComponentType());
 
         if (uuidComp == null || player == null) return;
 
         String uuid = uuidComp.getUuid().toString();
-        VeinMiningConfig cfg = config.get();
+        PlayerPolicy policy = cfg.getPolicy(uuid);
 
-        boolean isAdmin = player.hasPermission("veinmining.admin");
-        VeinMiningConfig.GroupSettings group = cfg.resolveGroup(player);
+        String currentTarget = players.getTargetMode(uuid);
+        String currentPattern = players.getPattern(uuid);
+        String currentOri = players.getOrientation(uuid);
+        String currentKey = players.getActivation(uuid);
 
-        String currentTarget = cfg.getPlayerTargetMode(uuid);
-        String currentPattern = cfg.getPlayerPattern(uuid);
-        String currentOri = cfg.getPlayerOrientation(uuid);
-        String currentKey = cfg.getPlayerActivation(uuid);
-
-        List<String> allowedModes = cfg.getEffectiveAllowedModes(uuid, group, isAdmin);
-        int maxVeinSize = cfg.getEffectiveLimit(uuid, group, isAdmin);
+        List<String> allowedModes = policy.getAllowedModes();
+        int maxVeinSize = policy.getMaxVeinSize();
 
         ui.set("#LblBlockLimit.Text", String.valueOf(maxVeinSize));
 
@@ -94,10 +95,10 @@ public class VeinMiningGui extends InteractiveCustomUIPage<VeinMiningGui.GuiData
         updateButtonState(ui, "#BtnOriBlock", "block".equalsIgnoreCase(currentOri));
         updateButtonState(ui, "#BtnOriPlayer", "player".equalsIgnoreCase(currentOri));
 
-        buildPatternList(ui, events, currentPattern, cfg, uuid, group, isAdmin, maxVeinSize);
+        buildPatternList(ui, events, currentPattern, cfg, policy, maxVeinSize);
     }
 
-    private void buildPatternList(UICommandBuilder ui, UIEventBuilder events, String current, VeinMiningConfig cfg, String uuid, VeinMiningConfig.GroupSettings group, boolean isAdmin, int maxSize) {
+    private void buildPatternList(UICommandBuilder ui, UIEventBuilder events, String current, VeinMiningConfig.Snapshot cfg, PlayerPolicy policy, int maxSize) {
         ui.clear("#ColLeft");
         ui.clear("#ColRight");
 
@@ -111,7 +112,7 @@ public class VeinMiningGui extends InteractiveCustomUIPage<VeinMiningGui.GuiData
         patterns.add(new PatternDef("wall5", "Wall 5x5", "IconWall5", 25));
         patterns.add(new PatternDef("diagonal", "Diagonal", "IconDiagonal", 1));
 
-        patterns.removeIf(p -> !cfg.isPatternAllowed(uuid, p.id, group, isAdmin));
+        patterns.removeIf(p -> !policy.isPatternAllowed(p.id));
 
         if (!cfg.isShowPatternsAboveLimit()) {
             patterns.removeIf(p -> maxSize < p.req);
@@ -157,40 +158,37 @@ public class VeinMiningGui extends InteractiveCustomUIPage<VeinMiningGui.GuiData
         if (uuidComp == null || player == null || data.action == null) return;
 
         String uuid = uuidComp.getUuid().toString();
-        boolean needsSave = false;
-        VeinMiningConfig cfg = config.get();
+        boolean changed = false;
+        VeinMiningConfig.Snapshot cfg = config.get().snapshot();
 
-        boolean isAdmin = player.hasPermission("veinmining.admin");
-        VeinMiningConfig.GroupSettings group = cfg.resolveGroup(player);
+        PlayerPolicy policy = cfg.getPolicy(uuid);
 
         if ("SetTarget".equals(data.action)) {
-            List<String> allowed = cfg.getEffectiveAllowedModes(uuid, group, isAdmin);
-            if ((allowed.isEmpty() || allowed.contains(data.value)) && !cfg.getPlayerTargetMode(uuid).equals(data.value)) {
-                cfg.setPlayerTargetMode(uuid, data.value);
-                needsSave = true;
+            if (policy.isModeAllowed(data.value) && !players.getTargetMode(uuid).equals(data.value)) {
+                players.setTargetMode(uuid, data.value);
+                changed = true;
             }
         } else if ("SetPattern".equals(data.action)) {
-            if (!cfg.getPlayerPattern(uuid).equals(data.value) && cfg.isPatternAllowed(uuid, data.value, group, isAdmin)) {
-                cfg.setPlayerPattern(uuid, data.value);
-                needsSave = true;
+            if (!players.getPattern(uuid).equals(data.value) && policy.isPatternAllowed(data.value)) {
+                players.setPattern(uuid, data.value);
+                changed = true;
             }
         } else if ("SetOri".equals(data.action)) {
-            if (!cfg.getPlayerOrientation(uuid).equals(data.value)) {
-                cfg.setPlayerOrientation(uuid, data.value);
-                needsSave = true;
+            if (!players.getOrientation(uuid).equals(data.value)) {
+                players.setOrientation(uuid, data.value);
+                changed = true;
             }
         } else if ("SetKey".equals(data.action)) {
-            if (!cfg.getPlayerActivation(uuid).equals(data.value)) {
-                cfg.setPlayerActivation(uuid, data.value);
-                needsSave = true;
+            if (!players.getActivation(uuid).equals(data.value)) {
+                players.setActivation(uuid, data.value);
+                changed = true;
             }
         }
 
-        if (needsSave) {
-            config.save();
+        if (changed) {
             UICommandBuilder cmd = new UICommandBuilder();
             UIEventBuilder ev = new UIEventBuilder();
-            updateVisuals(ref, cmd, ev, store);
+            updateVisuals(ref, cmd, ev, store, cfg);
             sendUpdate(cmd, ev, false);
         }
     }
@@ -0,0 +1,126 @@
+package com.einent.veinmining.systems;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.BlockChunk;
+import com.hypixel.hytale.server.core.universe.world.chunk.section.BlockSection;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+
+public class BlockReader {
+
+    private static final int SECTION_BITS = 5;
+
+    private final World world;
+    private final ChunkStore chunkStore;
+    private final Store<ChunkStore> store;
+
+    private long chunkIndex = Long.MIN_VALUE;
+    private Ref<ChunkStore> chunkRef;
+    private BlockChunk blockChunk;
+    private boolean chunkResolved;
+
+    private int sectionY = Integer.MIN_VALUE;
+    private BlockSection section;
+
+    public BlockReader(World world) {
+        this.world = world;
+        this.chunkStore = world.getChunkStore();
+        this.store = chunkStore.getStore();
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public BlockType getBlockType(Vector3i pos) {
+        return getBlockType(pos.x, pos.y, pos.z);
+    }
+
+    public BlockType getBlockType(int x, int y, int z) {
+        BlockSection s = getSection(x, y, z);
+        if (s == null) return world.getBlockType(x, y, z);
+        try {
+            return BlockType.getAssetMap().getAsset(s.get(x, y, z));
+        } catch (Exception e) {
+            return world.getBlockType(x, y, z);
+        }
+    }
+
+    public int getBlockId(Vector3i pos) {
+        return getBlockId(pos.x, pos.y, pos.z);
+    }
+
+    public int getBlockId(int x, int y, int z) {
+        BlockSection s = getSection(x, y, z);
+        if (s != null) {
+            try {
+                return s.get(x, y, z);
+            } catch (Exception ignored) {}
+        }
+        return BlockTypeIndex.indexOf(world.getBlockType(x, y, z));
+    }
+
+    public int getFiller(int x, int y, int z) {
+        BlockSection s = getSection(x, y, z);
+        if (s == null) return 0;
+        try {
+            return s.getFiller(x, y, z);
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    public boolean sectionMayContain(int x, int y, int z, int blockId) {
+        BlockSection s = getSection(x, y, z);
+        if (s == null) return true;
+        try {
+            return s.contains(blockId);
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    public void invalidate() {
+        chunkIndex = Long.MIN_VALUE;
+        chunkRef = null;
+        chunkResolved = false;
+        blockChunk = null;
+        sectionY = Integer.MIN_VALUE;
+        section = null;
+    }
+
+    public BlockSection getSection(int x, int y, int z) {
+        long index = ChunkUtil.indexChunkFromBlock(x, z);
+        if (index != chunkIndex || (chunkRef != null && !chunkRef.isValid())) {
+            invalidate();
+            chunkIndex = index;
+        }
+        if (!chunkResolved) {
+            chunkResolved = true;
+            try {
+                chunkRef = chunkStore.getChunkReference(index);
+                if (chunkRef != null && chunkRef.isValid()) {
+                    blockChunk = store.getComponent(chunkRef, BlockChunk.getComponentType());
+                }
+            } catch (Exception ignored) {}
+        }
+        if (blockChunk == null) return null;
+
+        int sy = y >> SECTION_BITS;
+        if (sy != sectionY) {
+            sectionY = sy;
+            try {
+                @SuppressWarnings("deprecation")
+                BlockSection s = blockChunk.getSectionAtBlockY(y);
+                section = s;
+            } catch (Exception e) {
+                section = null;
+            }
+        }
+        return section;
+    }
+}
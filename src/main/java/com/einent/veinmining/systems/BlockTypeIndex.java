@@ -0,0 +1,72 @@
+package com.einent.veinmining.systems;
+
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+
+import java.util.Arrays;
+
+public class BlockTypeIndex {
+
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private static final byte CLASSIFIED = 1;
+    private static final byte ORE = 2;
+    private static final byte CRACKED = 4;
+    private static final byte EMPTY = 8;
+
+    private static volatile byte[] flags = new byte[0];
+
+    private BlockTypeIndex() {}
+
+    public static int indexOf(String blockId) {
+        if (blockId == null) return UNKNOWN;
+        int index = BlockType.getAssetMap().getIndex(blockId);
+        return index >= 0 ? index : UNKNOWN;
+    }
+
+    public static int indexOf(BlockType type) {
+        return type == null ? UNKNOWN : indexOf(type.getId());
+    }
+
+    public static boolean isOre(int index) {
+        return (flags(index) & ORE) != 0;
+    }
+
+    public static boolean isCracked(int index) {
+        return (flags(index) & CRACKED) != 0;
+    }
+
+    public static boolean isEmpty(int index) {
+        return (flags(index) & EMPTY) != 0;
+    }
+
+    public static synchronized void invalidate() {
+        flags = new byte[0];
+    }
+
+    private static byte flags(int index) {
+        if (index < 0) return 0;
+        byte[] f = flags;
+        if (index < f.length && f[index] != 0) return f[index];
+        return classify(index);
+    }
+
+    private static synchronized byte classify(int index) {
+        byte[] f = flags;
+        if (index >= f.length) {
+            f = Arrays.copyOf(f, Math.max(index + 1, f.length * 2));
+        }
+        if (f[index] == 0) {
+            byte value = CLASSIFIED;
+            BlockType type = BlockType.getAssetMap().getAsset(index);
+            String id = type != null ? type.getId() : null;
+            if (id != null) {
+                if (id.contains("Ore_")) value |= ORE;
+                if (id.contains("_Cracked")) value |= CRACKED;
+                if (id.equals("Empty")) value |= EMPTY;
+            }
+            f[index] = value;
+        }
+        flags = f;
+        return f[index];
+    }
+}
@@ -0,0 +1,96 @@
+package com.einent.veinmining.systems;
+
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class BlockWriter {
+
+    private static final int PERFORM_BLOCK_UPDATE = 256;
+    private static final long XZ_MASK = 0x3FFFFFFL;
+    private static final long Y_MASK = 0xFFFL;
+
+    private final World world;
+    private final FloodFillEngine.LongSet vein;
+    private final FloodFillEngine.LongSet removed;
+    private final List<Vector3i> silent;
+
+    public BlockWriter(World world) {
+        this.world = world;
+        this.vein = null;
+        this.removed = null;
+        this.silent = null;
+    }
+
+    public BlockWriter(World world, Collection<Vector3i> veinPositions) {
+        this.world = world;
+        this.vein = new FloodFillEngine.LongSet();
+        this.vein.reset(veinPositions.size());
+        for (Vector3i pos : veinPositions) vein.add(pack(pos.x, pos.y, pos.z));
+        this.removed = new FloodFillEngine.LongSet();
+        this.removed.reset(veinPositions.size());
+        this.silent = new ArrayList<>();
+    }
+
+    public void include(Vector3i pos) {
+        if (vein != null) vein.add(pack(pos.x, pos.y, pos.z));
+    }
+
+    public void removeAll(List<Vector3i> positions, int settings) {
+        for (Vector3i pos : positions) remove(pos, settings);
+    }
+
+    public void remove(Vector3i pos, int settings) {
+        if (vein == null || (settings & PERFORM_BLOCK_UPDATE) == 0) {
+            world.setBlock(pos.x, pos.y, pos.z, "Empty", settings);
+            return;
+        }
+        removed.add(pack(pos.x, pos.y, pos.z));
+        if (isInterior(pos)) {
+            world.setBlock(pos.x, pos.y, pos.z, "Empty", settings & ~PERFORM_BLOCK_UPDATE);
+            silent.add(pos);
+        } else {
+            world.setBlock(pos.x, pos.y, pos.z, "Empty", settings);
+        }
+    }
+
+    public void updateExposed(int settings) {
+        if (silent == null || silent.isEmpty()) return;
+        for (Vector3i pos : silent) {
+            if (touchesRemaining(pos)) world.setBlock(pos.x, pos.y, pos.z, "Empty", settings);
+        }
+        silent.clear();
+    }
+
+    private boolean touchesRemaining(Vector3i pos) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    if ((dx | dy | dz) == 0) continue;
+                    long key = pack(pos.x + dx, pos.y + dy, pos.z + dz);
+                    if (vein.contains(key) && !removed.contains(key)) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isInterior(Vector3i pos) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    if ((dx | dy | dz) == 0) continue;
+                    if (!vein.contains(pack(pos.x + dx, pos.y + dy, pos.z + dz))) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static long pack(int x, int y, int z) {
+        return ((x & XZ_MASK) << 38) | ((z & XZ_MASK) << 12) | (y & Y_MASK);
+    }
+}
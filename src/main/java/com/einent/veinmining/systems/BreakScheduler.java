@@ -0,0 +1,127 @@
+package com.einent.veinmining.systems;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+public class BreakScheduler {
+
+    public interface Job {
+        boolean isValid();
+        boolean breakNext();
+        int getBroken();
+        void complete();
+        void abort();
+    }
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    // One pump per world tick at the default 30 TPS.
+    private static final long PUMP_INTERVAL_MS = 33L;
+    private static final Map<World, BreakScheduler> SCHEDULERS = new ConcurrentHashMap<>();
+    private static final Map<World, LoadGovernor> GOVERNORS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final World world;
+    private final Map<String, ArrayDeque<Job>> jobsByOwner = new HashMap<>();
+    private final ArrayDeque<String> rotation = new ArrayDeque<>();
+    private final LoadGovernor governor;
+    private boolean pumpScheduled;
+    private long pumpDueAt;
+
+    private BreakScheduler(World world) {
+        this.world = world;
+        this.governor = governorFor(world);
+    }
+
+    public static BreakScheduler forWorld(World world) {
+        return SCHEDULERS.computeIfAbsent(world, BreakScheduler::new);
+    }
+
+    public static int scaleLimit(World world, int limit) {
+        LoadGovernor governor = GOVERNORS.get(world);
+        return governor != null ? governor.scaleLimit(limit) : limit;
+    }
+
+    private static LoadGovernor governorFor(World world) {
+        return GOVERNORS.computeIfAbsent(world, w -> new LoadGovernor(TimeUnit.MILLISECONDS.toNanos(PUMP_INTERVAL_MS)));
+    }
+
+    public void setLimits(boolean adaptive, int blocksPerTick, int maxBlocksPerTick, long budgetMicros) {
+        governor.configure(adaptive, blocksPerTick, maxBlocksPerTick, TimeUnit.MICROSECONDS.toNanos(Math.max(0, budgetMicros)));
+    }
+
+    public void submit(String owner, Job job) {
+        ArrayDeque<Job> jobs = jobsByOwner.get(owner);
+        if (jobs == null) {
+            jobs = new ArrayDeque<>();
+            jobsByOwner.put(owner, jobs);
+            rotation.addLast(owner);
+        }
+        jobs.addLast(job);
+        if (!pumpScheduled) {
+            pumpScheduled = true;
+            pumpDueAt = System.nanoTime();
+            world.execute(this::pump);
+        }
+    }
+
+    private void pump() {
+        pumpScheduled = false;
+        long start = System.nanoTime();
+        int blocksPerTick = governor.getBlocksPerTick();
+        long budgetNanos = governor.getBudgetNanos();
+        long deadline = start + budgetNanos;
+        int broken = 0;
+
+        while (!rotation.isEmpty()) {
+            if (blocksPerTick > 0 && broken >= blocksPerTick) break;
+            if (budgetNanos > 0 && System.nanoTime() >= deadline) break;
+
+            String owner = rotation.pollFirst();
+            ArrayDeque<Job> jobs = jobsByOwner.get(owner);
+            Job job = jobs.peekFirst();
+
+            boolean more;
+            int before = job.getBroken();
+            try {
+                if (job.isValid()) {
+                    more = job.breakNext();
+                    if (!more) job.complete();
+                } else {
+                    more = false;
+                    job.abort();
+                }
+            } catch (Exception e) {
+                LOGGER.at(Level.WARNING).log("Vein break job failed: " + e);
+                more = false;
+                try { job.abort(); } catch (Exception ignored) {}
+            }
+            broken += job.getBroken() - before;
+
+            if (!more) jobs.pollFirst();
+            if (jobs.isEmpty()) {
+                jobsByOwner.remove(owner);
+            } else {
+                rotation.addLast(owner);
+            }
+        }
+
+        governor.record(broken, System.nanoTime() - start, start - pumpDueAt);
+
+        if (rotation.isEmpty()) {
+            SCHEDULERS.remove(world, this);
+        } else {
+            pumpScheduled = true;
+            pumpDueAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PUMP_INTERVAL_MS);
+            CompletableFuture.delayedExecutor(PUMP_INTERVAL_MS, TimeUnit.MILLISECONDS, world).execute(this::pump);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.einent.veinmining.systems;
+
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DropAccumulator {
+
+    private final Map<String, List<ItemStack>> byItem = new LinkedHashMap<>();
+
+    public void add(ItemStack drop) {
+        if (drop == null || drop.isEmpty()) return;
+        List<ItemStack> bucket = byItem.computeIfAbsent(drop.getItemId(), id -> new ArrayList<>(1));
+        for (int i = 0; i < bucket.size(); i++) {
+            ItemStack existing = bucket.get(i);
+            if (existing.isStackableWith(drop)) {
+                bucket.set(i, existing.withQuantity(existing.getQuantity() + drop.getQuantity()));
+                return;
+            }
+        }
+        bucket.add(drop);
+    }
+
+    public void addAll(List<ItemStack> drops) {
+        for (ItemStack drop : drops) add(drop);
+    }
+
+    public boolean isEmpty() {
+        return byItem.isEmpty();
+    }
+
+    public List<ItemStack> drain() {
+        List<ItemStack> res = new ArrayList<>();
+        for (List<ItemStack> bucket : byItem.values()) {
+            for (ItemStack stack : bucket) split(stack, res);
+        }
+        byItem.clear();
+        return res;
+    }
+
+    private void split(ItemStack stack, List<ItemStack> out) {
+        Item item = stack.getItem();
+        int maxStack = (item != null) ? item.getMaxStack() : 0;
+        int remaining = stack.getQuantity();
+        if (maxStack <= 0 || remaining <= maxStack) {
+            out.add(stack);
+            return;
+        }
+        while (remaining > 0) {
+            int qty = Math.min(remaining, maxStack);
+            out.add(stack.withQuantity(qty));
+            remaining -= qty;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.einent.veinmining.systems;
+
+import com.hypixel.hytale.component.AddReason;
+import com.hypixel.hytale.component.Holder;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.inventory.Inventory;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.transaction.ItemStackTransaction;
+import com.hypixel.hytale.server.core.inventory.transaction.ListTransaction;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.modules.entity.item.ItemComponent;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class DropEmitter {
+
+    private final Store<EntityStore> store;
+    private final Player player;
+    private final Ref<EntityStore> playerRef;
+    private final Vector3i sourcePos;
+    private final String mode;
+    private final Random rand;
+    private final int maxPerVein;
+    private final int maxPerChunk;
+
+    private final Map<Long, Integer> spawnedPerChunk = new HashMap<>();
+    private final DropAccumulator overflow = new DropAccumulator();
+    private int spawned;
+
+    public DropEmitter(Store<EntityStore> store, Player player, Ref<EntityStore> playerRef, Vector3i sourcePos, String dropMode, Random rand, int maxPerVein, int maxPerChunk) {
+        this.store = store;
+        this.player = player;
+        this.playerRef = playerRef;
+        this.sourcePos = sourcePos;
+        this.mode = dropMode.toLowerCase().trim();
+        this.rand = rand;
+        this.maxPerVein = maxPerVein;
+        this.maxPerChunk = maxPerChunk;
+    }
+
+    public static boolean isInventoryMode(String dropMode) {
+        String m = dropMode.toLowerCase().trim();
+        return m.equals("inventory") || m.equals("to_inventory");
+    }
+
+    public void emit(Vector3i blockPos, List<ItemStack> drops) {
+        if (drops.isEmpty()) return;
+        DropAccumulator coalesced = new DropAccumulator();
+        coalesced.addAll(drops);
+        if (coalesced.isEmpty()) return;
+
+        List<ItemStack> stacks = coalesced.drain();
+        if (isInventoryMode(mode)) {
+            stacks = collectIntoInventory(stacks);
+            if (stacks.isEmpty()) return;
+        }
+
+        Vector3d base = resolveBase(blockPos);
+        long chunkIndex = ChunkUtil.indexChunkFromBlock((int) Math.floor(base.x), (int) Math.floor(base.z));
+        for (ItemStack stack : stacks) {
+            if (!hasCapacity(chunkIndex)) {
+                overflow.add(stack);
+                continue;
+            }
+            if (spawnStack(base, stack)) {
+                spawned++;
+                spawnedPerChunk.merge(chunkIndex, 1, Integer::sum);
+            }
+        }
+    }
+
+    public void finish() {
+        if (overflow.isEmpty()) return;
+        Vector3d base = resolveBase(sourcePos);
+        for (ItemStack stack : overflow.drain()) spawnStack(base, stack);
+    }
+
+    private boolean hasCapacity(long chunkIndex) {
+        if (maxPerVein > 0 && spawned >= maxPerVein) return false;
+        return maxPerChunk <= 0 || spawnedPerChunk.getOrDefault(chunkIndex, 0) < maxPerChunk;
+    }
+
+    private List<ItemStack> collectIntoInventory(List<ItemStack> stacks) {
+        Inventory inv = (player != null) ? player.getInventory() : null;
+        if (inv == null) return stacks;
+        List<ItemStack> remainder = new ArrayList<>();
+        try {
+            ListTransaction<ItemStackTransaction> tx = inv.getCombinedHotbarFirst().addItemStacks(stacks);
+            for (ItemStackTransaction t : tx.getList()) {
+                ItemStack rest = t.getRemainder();
+                if (rest != null && !rest.isEmpty()) remainder.add(rest);
+            }
+        } catch (Exception e) {
+            return stacks;
+        }
+        return remainder;
+    }
+
+    private Vector3d resolveBase(Vector3i blockPos) {
+        if (mode.equals("at_player") || mode.equals("player") || isInventoryMode(mode)) {
+            TransformComponent t = store.getComponent(playerRef, TransformComponent.getComponentType());
+            if (t != null) {
+                return t.getPosition().clone().add(0, 0.2, 0);
+            }
+            return new Vector3d(sourcePos.x + 0.5, sourcePos.y + 0.5, sourcePos.z + 0.5);
+        } else if (mode.equals("at_break") || mode.equals("break")) {
+            return new Vector3d(sourcePos.x + 0.5, sourcePos.y + 0.5, sourcePos.z + 0.5);
+        }
+        return new Vector3d(blockPos.x + 0.5, blockPos.y + 0.5, blockPos.z + 0.5);
+    }
+
+    private boolean spawnStack(Vector3d base, ItemStack stack) {
+        String id = stack.getItemId();
+        if (id == null || id.trim().isEmpty() || id.equalsIgnoreCase("Empty")) return false;
+        Vector3d pos = base.clone().add(new Vector3d((rand.nextDouble() - 0.5) * 0.5, (rand.nextDouble() - 0.5) * 0.5, (rand.nextDouble() - 0.5) * 0.5));
+        Holder<EntityStore> item = ItemComponent.generateItemDrop(store, stack, pos, Vector3f.ZERO, 0, 0.15f, 0);
+        if (item == null) return false;
+        store.addEntity(item, AddReason.SPAWN);
+        return true;
+    }
+}
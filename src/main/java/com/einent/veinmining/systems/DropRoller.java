@@ -0,0 +1,90 @@
+package com.einent.veinmining.systems;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.logging.Level;
+
+public class DropRoller {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final String ITEM_MODULE_CLASS = "com.hypixel.hytale.server.core.modules.item.ItemModule";
+    private static final MethodType ROLL_TYPE = MethodType.methodType(List.class, String.class);
+
+    private static volatile MethodHandle rollHandle;
+    private static volatile String failure = "not bound yet";
+    private static volatile boolean permanentFailure;
+    private static volatile boolean invokeFailureLogged;
+
+    private DropRoller() {}
+
+    public static synchronized boolean bind() {
+        if (rollHandle != null) return true;
+        if (permanentFailure) return false;
+
+        Class<?> itemModuleClass;
+        MethodHandle getter;
+        MethodHandle roll;
+        try {
+            itemModuleClass = Class.forName(ITEM_MODULE_CLASS);
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Method getMethod = itemModuleClass.getMethod("get");
+            Method rollMethod = itemModuleClass.getMethod("getRandomItemDrops", String.class);
+            if (!List.class.isAssignableFrom(rollMethod.getReturnType())) {
+                return fail("ItemModule.getRandomItemDrops returns " + rollMethod.getReturnType().getName(), true);
+            }
+            getter = lookup.unreflect(getMethod);
+            roll = lookup.unreflect(rollMethod);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return fail(e.toString(), true);
+        }
+
+        Object instance;
+        try {
+            instance = getter.invoke();
+        } catch (Throwable t) {
+            return fail("ItemModule.get() failed: " + t, false);
+        }
+        if (instance == null) {
+            return fail("ItemModule is not loaded", false);
+        }
+
+        rollHandle = roll.bindTo(instance).asType(ROLL_TYPE);
+        failure = null;
+        return true;
+    }
+
+    public static String getStatus() {
+        return rollHandle != null ? "bound to ItemModule.getRandomItemDrops" : failure;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<ItemStack> roll(String dropListId) {
+        MethodHandle handle = rollHandle;
+        if (handle == null) {
+            if (permanentFailure || !bind()) return List.of();
+            handle = rollHandle;
+        }
+        try {
+            List<ItemStack> drops = (List<ItemStack>) handle.invokeExact(dropListId);
+            return drops != null ? drops : List.of();
+        } catch (Throwable t) {
+            if (!invokeFailureLogged) {
+                invokeFailureLogged = true;
+                LOGGER.at(Level.WARNING).log("Rolling drop list " + dropListId + " failed: " + t);
+            }
+            return List.of();
+        }
+    }
+
+    private static boolean fail(String reason, boolean permanent) {
+        failure = reason;
+        permanentFailure = permanent;
+        return false;
+    }
+}
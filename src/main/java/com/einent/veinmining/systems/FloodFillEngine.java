@@ -0,0 +1,343 @@
+package com.einent.veinmining.systems;
+
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.util.FillerBlockUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class FloodFillEngine {
+
+    @FunctionalInterface
+    public interface BlockMatcher {
+        boolean matches(int x, int y, int z);
+    }
+
+    @FunctionalInterface
+    public interface FillerLookup {
+        int getFiller(int x, int y, int z);
+    }
+
+    @FunctionalInterface
+    public interface SectionFilter {
+        boolean mayContain(int x, int y, int z);
+    }
+
+    // Coordinates are packed relative to the search start, 21 bits per axis.
+    private static final int AXIS_BITS = 21;
+    private static final int AXIS_BIAS = 1 << (AXIS_BITS - 1);
+    private static final long AXIS_MASK = (1L << AXIS_BITS) - 1;
+
+    // Shell sort keys: squared distance | index within the shell (keeps the sort stable).
+    private static final int INDEX_BITS = 14;
+
+    private static final int SECTION_BITS = 5;
+
+    private final LongSet visited = new LongSet();
+    private final LongSet origins = new LongSet();
+    private final LongSet allowedSections = new LongSet();
+    private final LongSet prunedSections = new LongSet();
+    private long lastSection;
+    private boolean lastSectionAllowed;
+    private long[] sortKeys = new long[0];
+
+    private int startX;
+    private int startY;
+    private int startZ;
+
+    private final LongBuckets frontier = new LongBuckets();
+    private final LongBuckets found = new LongBuckets();
+    private BlockMatcher shellMatcher;
+    private FillerLookup shellFillers;
+    private SectionFilter shellSections;
+    private int visitLimit;
+    private int originX;
+    private int originY;
+    private int originZ;
+
+    public List<Vector3i> search(int sx, int sy, int sz, int bufferLimit, int max, BlockMatcher matcher, FillerLookup fillers, SectionFilter sections) {
+        begin(sx, sy, sz, bufferLimit, matcher, fillers, sections);
+        int limit = Math.max(max, 0);
+        List<Vector3i> out = new ArrayList<>(Math.min(limit, bufferLimit + 1));
+        int settled = 0;
+        int nextShell = 0;
+        while (settled < limit && isOpen()) {
+            expand();
+            if (frontier.isEmpty()) break;
+            int edge = frontier.lowest() - 2;
+            for (; nextShell <= edge; nextShell++) settled += found.size(nextShell);
+        }
+        while (out.size() < limit) {
+            if (!advance(out)) break;
+        }
+        return out.size() > limit ? new ArrayList<>(out.subList(0, limit)) : out;
+    }
+
+    public void begin(int sx, int sy, int sz, int visitLimit, BlockMatcher matcher, FillerLookup fillers, SectionFilter sections) {
+        reset(sx, sy, sz, visitLimit);
+        frontier.reset();
+        found.reset();
+        this.visitLimit = visitLimit;
+        this.shellMatcher = matcher;
+        this.shellFillers = fillers;
+        this.shellSections = sections;
+
+        long startOrigin = originOf(sx, sy, sz, fillers);
+        originX = unpackX(startOrigin);
+        originY = unpackY(startOrigin);
+        originZ = unpackZ(startOrigin);
+        origins.add(startOrigin);
+        found.add(0, startOrigin);
+
+        visited.add(pack(sx, sy, sz));
+        pushNeighbors(sx, sy, sz);
+    }
+
+    // Expands the frontier nearest shell first and appends the next finished shell to out, sorted by
+    // squared distance from the start origin. A shell counts as finished once the frontier is two shells
+    // beyond it, so streamed order is approximate: a vein that winds back inwards can still add to an
+    // earlier shell, and those blocks come with a later one. search() applies the same rule but only stops
+    // once max origins sit in finished shells, so it never cuts a shell short.
+    public boolean advance(List<Vector3i> out) {
+        while (true) {
+            boolean open = isOpen();
+            int shell = found.lowest();
+            if (shell >= 0 && (!open || shell <= frontier.lowest() - 2)) {
+                emitShell(shell, out);
+                return true;
+            }
+            if (!open) return false;
+            expand();
+        }
+    }
+
+    private boolean isOpen() {
+        return !frontier.isEmpty() && visited.size() < visitLimit;
+    }
+
+    private boolean expand() {
+        if (!isOpen()) return false;
+        long key = frontier.poll();
+        int x = unpackX(key);
+        int y = unpackY(key);
+        int z = unpackZ(key);
+        if ((shellSections == null || sectionMayContain(x, y, z, shellSections)) && shellMatcher.matches(x, y, z)) {
+            long origin = originOf(x, y, z, shellFillers);
+            if (origins.add(origin)) {
+                found.add(chebyshev(origin, originX, originY, originZ), origin);
+            }
+            pushNeighbors(x, y, z);
+        }
+        return true;
+    }
+
+    private void pushNeighbors(int px, int py, int pz) {
+        for (int x = -1; x <= 1; x++) {
+            for (int y = -1; y <= 1; y++) {
+                for (int z = -1; z <= 1; z++) {
+                    if (x == 0 && y == 0 && z == 0) continue;
+                    long next = pack(px + x, py + y, pz + z);
+                    if (visited.add(next)) {
+                        frontier.add(chebyshev(next, originX, originY, originZ), next);
+                    }
+                }
+            }
+        }
+    }
+
+    private void emitShell(int shell, List<Vector3i> out) {
+        int n = found.size(shell);
+        for (int i = 0; i < n; i++) {
+            long key = found.get(shell, i);
+            long dx = unpackX(key) - originX;
+            long dy = unpackY(key) - originY;
+            long dz = unpackZ(key) - originZ;
+            sortKeys[i] = ((dx * dx + dy * dy + dz * dz) << INDEX_BITS) | i;
+        }
+        Arrays.sort(sortKeys, 0, n);
+
+        long indexMask = (1L << INDEX_BITS) - 1;
+        for (int i = 0; i < n; i++) {
+            long key = found.get(shell, (int) (sortKeys[i] & indexMask));
+            out.add(new Vector3i(unpackX(key), unpackY(key), unpackZ(key)));
+        }
+        found.clear(shell);
+    }
+
+    private int chebyshev(long key, int cx, int cy, int cz) {
+        int dx = Math.abs(unpackX(key) - cx);
+        int dy = Math.abs(unpackY(key) - cy);
+        int dz = Math.abs(unpackZ(key) - cz);
+        return Math.max(dx, Math.max(dy, dz));
+    }
+
+    private void reset(int sx, int sy, int sz, int bufferLimit) {
+        this.startX = sx;
+        this.startY = sy;
+        this.startZ = sz;
+
+        int maxEntries = Math.max(bufferLimit, 0) + 27;
+        visited.reset(maxEntries);
+        origins.reset(maxEntries);
+        allowedSections.reset(64);
+        prunedSections.reset(64);
+        lastSection = -1L;
+
+        if (sortKeys.length < maxEntries) {
+            sortKeys = new long[maxEntries];
+        }
+    }
+
+    private boolean sectionMayContain(int x, int y, int z, SectionFilter sections) {
+        long key = ((long) (x >> SECTION_BITS) & AXIS_MASK) << (AXIS_BITS * 2)
+                | ((long) (y >> SECTION_BITS) & AXIS_MASK) << AXIS_BITS
+                | ((long) (z >> SECTION_BITS) & AXIS_MASK);
+        if (key == lastSection) return lastSectionAllowed;
+
+        boolean allowed;
+        if (allowedSections.contains(key)) {
+            allowed = true;
+        } else if (prunedSections.contains(key)) {
+            allowed = false;
+        } else {
+            allowed = sections.mayContain(x, y, z);
+            (allowed ? allowedSections : prunedSections).add(key);
+        }
+        lastSection = key;
+        lastSectionAllowed = allowed;
+        return allowed;
+    }
+
+    private long originOf(int x, int y, int z, FillerLookup fillers) {
+        int filler = fillers.getFiller(x, y, z);
+        int fx = FillerBlockUtil.unpackX(filler);
+        int fy = FillerBlockUtil.unpackY(filler);
+        int fz = FillerBlockUtil.unpackZ(filler);
+        return pack(x - fx, y - fy, z - fz);
+    }
+
+    private long pack(int x, int y, int z) {
+        return ((long) (x - startX + AXIS_BIAS) & AXIS_MASK) << (AXIS_BITS * 2)
+                | ((long) (y - startY + AXIS_BIAS) & AXIS_MASK) << AXIS_BITS
+                | ((long) (z - startZ + AXIS_BIAS) & AXIS_MASK);
+    }
+
+    private int unpackX(long key) { return (int) ((key >>> (AXIS_BITS * 2)) & AXIS_MASK) - AXIS_BIAS + startX; }
+    private int unpackY(long key) { return (int) ((key >>> AXIS_BITS) & AXIS_MASK) - AXIS_BIAS + startY; }
+    private int unpackZ(long key) { return (int) (key & AXIS_MASK) - AXIS_BIAS + startZ; }
+
+    static class LongBuckets {
+        private long[][] buckets = new long[0][];
+        private int[] sizes = new int[0];
+        private int lowest;
+        private int count;
+
+        void reset() {
+            Arrays.fill(sizes, 0);
+            lowest = 0;
+            count = 0;
+        }
+
+        void add(int bucket, long key) {
+            if (bucket >= sizes.length) {
+                int length = Math.max(bucket + 1, sizes.length * 2);
+                buckets = Arrays.copyOf(buckets, length);
+                sizes = Arrays.copyOf(sizes, length);
+            }
+            long[] b = buckets[bucket];
+            if (b == null) {
+                b = buckets[bucket] = new long[16];
+            } else if (sizes[bucket] == b.length) {
+                b = buckets[bucket] = Arrays.copyOf(b, b.length * 2);
+            }
+            b[sizes[bucket]++] = key;
+            if (count++ == 0 || bucket < lowest) lowest = bucket;
+        }
+
+        boolean isEmpty() { return count == 0; }
+
+        int lowest() {
+            if (count == 0) return -1;
+            while (sizes[lowest] == 0) lowest++;
+            return lowest;
+        }
+
+        long poll() {
+            int b = lowest();
+            count--;
+            return buckets[b][--sizes[b]];
+        }
+
+        int size(int bucket) { return bucket < sizes.length ? sizes[bucket] : 0; }
+
+        long get(int bucket, int i) { return buckets[bucket][i]; }
+
+        void clear(int bucket) {
+            count -= sizes[bucket];
+            sizes[bucket] = 0;
+        }
+    }
+
+    static class LongSet {
+        private static final long EMPTY = -1L;
+
+        private long[] table = new long[0];
+        private int mask;
+        private int size;
+
+        void reset(int expected) {
+            int capacity = Math.max(64, Integer.highestOneBit(Math.max(expected, 1) * 2 - 1) << 1);
+            if (table.length < capacity) {
+                table = new long[capacity];
+            }
+            Arrays.fill(table, EMPTY);
+            mask = table.length - 1;
+            size = 0;
+        }
+
+        boolean add(long key) {
+            int slot = mix(key) & mask;
+            while (true) {
+                long current = table[slot];
+                if (current == EMPTY) {
+                    table[slot] = key;
+                    if (++size * 2 > table.length) grow();
+                    return true;
+                }
+                if (current == key) return false;
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private void grow() {
+            long[] old = table;
+            table = new long[old.length * 2];
+            Arrays.fill(table, EMPTY);
+            mask = table.length - 1;
+            for (long key : old) {
+                if (key == EMPTY) continue;
+                int slot = mix(key) & mask;
+                while (table[slot] != EMPTY) slot = (slot + 1) & mask;
+                table[slot] = key;
+            }
+        }
+
+        boolean contains(long key) {
+            int slot = mix(key) & mask;
+            while (true) {
+                long current = table[slot];
+                if (current == EMPTY) return false;
+                if (current == key) return true;
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        int size() { return size; }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.einent.veinmining.systems;
+
+public class LoadGovernor {
+
+    private static final double ALPHA = 0.2;
+    private static final int MIN_BLOCKS_PER_TICK = 2;
+
+    private final long tickNanos;
+
+    private boolean adaptive;
+    private int baseBlocksPerTick = 24;
+    private int maxBlocksPerTick = 128;
+    private long targetNanos;
+
+    private int blocksPerTick = 24;
+    private double nanosPerBlock = -1;
+    private double lateNanos;
+    private long lastRecordAt;
+
+    public LoadGovernor(long tickNanos) {
+        this.tickNanos = tickNanos;
+    }
+
+    public void configure(boolean adaptive, int baseBlocksPerTick, int maxBlocksPerTick, long targetNanos) {
+        if (this.adaptive != adaptive || this.baseBlocksPerTick != baseBlocksPerTick) {
+            this.blocksPerTick = baseBlocksPerTick;
+        }
+        this.adaptive = adaptive;
+        this.baseBlocksPerTick = baseBlocksPerTick;
+        this.maxBlocksPerTick = Math.max(maxBlocksPerTick, baseBlocksPerTick);
+        this.targetNanos = targetNanos;
+    }
+
+    public int getBlocksPerTick() {
+        return blocksPerTick;
+    }
+
+    public long getBudgetNanos() {
+        return targetNanos;
+    }
+
+    public void record(int blocks, long workNanos, long pumpLateNanos) {
+        long now = System.nanoTime();
+        decayIdle(now);
+        lastRecordAt = now;
+        lateNanos += ALPHA * (Math.max(0, pumpLateNanos) - lateNanos);
+        if (blocks > 0) {
+            double perBlock = (double) workNanos / blocks;
+            nanosPerBlock = nanosPerBlock < 0 ? perBlock : nanosPerBlock + ALPHA * (perBlock - nanosPerBlock);
+        }
+        if (!adaptive || baseBlocksPerTick <= 0) return;
+
+        if (lateNanos > tickNanos / 2.0) {
+            blocksPerTick = Math.max(MIN_BLOCKS_PER_TICK, blocksPerTick / 2);
+            return;
+        }
+        if (targetNanos <= 0 || nanosPerBlock <= 0) return;
+
+        int ideal = (int) Math.min(maxBlocksPerTick, targetNanos / nanosPerBlock);
+        if (ideal > blocksPerTick) {
+            blocksPerTick = Math.min(ideal, blocksPerTick + Math.max(1, blocksPerTick / 4));
+        } else {
+            blocksPerTick = Math.max(MIN_BLOCKS_PER_TICK, ideal);
+        }
+    }
+
+    private void decayIdle(long now) {
+        if (lastRecordAt == 0) {
+            lastRecordAt = now;
+            return;
+        }
+        long idleTicks = (now - lastRecordAt) / tickNanos - 1;
+        if (idleTicks <= 0) return;
+        lastRecordAt += idleTicks * tickNanos;
+        lateNanos *= Math.pow(1.0 - ALPHA, Math.min(idleTicks, 1000));
+        if (adaptive && blocksPerTick < baseBlocksPerTick) {
+            blocksPerTick = (int) Math.min(baseBlocksPerTick, blocksPerTick + idleTicks * Math.max(1, blocksPerTick / 4));
+        }
+    }
+
+    public double getHealth() {
+        decayIdle(System.nanoTime());
+        return Math.max(0.25, Math.min(1.0, 1.0 - lateNanos / tickNanos));
+    }
+
+    public int scaleLimit(int limit) {
+        return Math.max(1, (int) (limit * getHealth()));
+    }
+}
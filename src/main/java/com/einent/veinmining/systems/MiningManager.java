@@ -1,76 +1,58 @@
 package com.einent.veinmining.systems;
 
+import com.einent.veinmining.config.PlayerDataStore;
+import com.einent.veinmining.config.PlayerPolicy;
 import com.einent.veinmining.config.VeinMiningConfig;
-import com.hypixel.hytale.component.AddReason;
-import com.hypixel.hytale.component.Holder;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
-import com.hypixel.hytale.math.vector.Vector3d;
-import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.math.vector.Vector3i;
 import com.hypixel.hytale.protocol.GameMode;
 import com.hypixel.hytale.protocol.SoundCategory;
-import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockBreakingDropType;
-import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockGathering;
 import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.asset.type.item.config.Item;
-import com.hypixel.hytale.server.core.asset.type.item.config.ItemTool;
-import com.hypixel.hytale.server.core.asset.type.item.config.ItemToolSpec;
 import com.hypixel.hytale.server.core.asset.type.soundevent.config.SoundEvent;
 import com.hypixel.hytale.server.core.blocktype.component.BlockPhysics;
 import com.hypixel.hytale.server.core.entity.entities.Player;
-import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
 import com.hypixel.hytale.server.core.event.events.ecs.BreakBlockEvent;
 import com.hypixel.hytale.server.core.inventory.Inventory;
 import com.hypixel.hytale.server.core.inventory.ItemStack;
 import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
-import com.hypixel.hytale.server.core.modules.entity.item.ItemComponent;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.SoundUtil;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
-import com.hypixel.hytale.server.core.util.Config;
 
-import java.lang.reflect.Method;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.logging.Level;
 
 public class MiningManager {
 
     public static final ThreadLocal<Boolean> IS_VEIN_MINING = ThreadLocal.withInitial(() -> false);
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
     private static final int PERFORM_BLOCK_UPDATE = 256;
     private static final Set<Vector3i> ACTIVE_VEINS = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
-    private static Method GET_DROPS_METHOD;
-    private static Object ITEM_MODULE_INSTANCE;
-
-    static {
-        try {
-            Class<?> itemModuleClass = Class.forName("com.hypixel.hytale.server.core.modules.item.ItemModule");
-            ITEM_MODULE_INSTANCE = itemModuleClass.getMethod("get").invoke(null);
-            GET_DROPS_METHOD = itemModuleClass.getMethod("getRandomItemDrops", String.class);
-        } catch (Exception ignored) {}
-    }
-
-    private final Config<VeinMiningConfig> config;
+    private final PlayerDataStore players;
     private final PatternCalculator patternCalculator;
 
-    public MiningManager(Config<VeinMiningConfig> config) {
-        this.config = config;
+    public MiningManager(PlayerDataStore players) {
+        this.players = players;
         this.patternCalculator = new PatternCalculator();
     }
 
-    public void performVeinMine(Player player, Ref<EntityStore> pRef, Vector3i startPos, String targetId, BlockType startBlockType, Store<EntityStore> store, String uuid, int effectiveLimit) {
-        VeinMiningConfig cfg = config.get();
-        boolean isAdmin = player.hasPermission("veinmining.admin");
+    public CompletableFuture<Integer> performVeinMine(Player player, Ref<EntityStore> pRef, Vector3i startPos, String targetId, BlockType startBlockType, Store<EntityStore> store, String uuid, int effectiveLimit, VeinMiningConfig.Snapshot cfg) {
+        PlayerPolicy policy = cfg.getPolicy(uuid);
 
-        if (!cfg.isModEnabled(uuid, isAdmin)) return;
+        if (!policy.isModEnabled()) return CompletableFuture.completedFuture(1);
 
         World world = player.getWorld();
+        if (cfg.isAdaptiveVeinLimit()) {
+            effectiveLimit = BreakScheduler.scaleLimit(world, effectiveLimit);
+        }
         Inventory inv = player.getInventory();
         boolean usingToolBelt = inv.usingToolsItem();
         ItemContainer activeContainer = usingToolBelt ? inv.getTools() : inv.getHotbar();
@@ -80,92 +62,75 @@ public class MiningManager {
         String toolId = (tool != null) ? tool.getItem().getId() : "";
 
         if (cfg.isRequireValidTool()) {
-            if (tool == null) return;
-            boolean isValid = false;
-            for (String allowedTool : cfg.getValidTools()) {
-                if (toolId.contains(allowedTool)) { isValid = true; break; }
-            }
-            if (!isValid) return;
+            if (tool == null || !cfg.isValidTool(toolId)) return CompletableFuture.completedFuture(1);
         }
 
-        List<String> blockBlacklist = cfg.getBlockBlacklist();
-        if (blockBlacklist.contains(targetId)) return;
-        List<String> blockWhitelist = cfg.getBlockWhitelist();
-        if (!blockWhitelist.isEmpty() && !blockWhitelist.contains(targetId)) return;
+        int targetIndex = BlockTypeIndex.indexOf(targetId);
+        if (cfg.isBlockBlacklisted(targetIndex)) return CompletableFuture.completedFuture(1);
+        if (!cfg.isBlockWhitelisted(targetIndex)) return CompletableFuture.completedFuture(1);
 
-        String pattern = cfg.getValidatedPattern(uuid, null, isAdmin);
-        String targetMode = cfg.getValidatedTargetMode(uuid, null, isAdmin);
-        String oriMode = cfg.getPlayerOrientation(uuid);
+        String pattern = policy.validatePattern(players.getPattern(uuid));
+        String targetMode = policy.validateTargetMode(players.getTargetMode(uuid));
+        String oriMode = players.getOrientation(uuid);
 
+        BlockReader reader = new BlockReader(world);
+        OriginResolver origins = new OriginResolver(reader);
         Vector3i hitFace = patternCalculator.getHitFace(startPos, store, pRef);
-        Vector3i originStart = patternCalculator.getMultiblockOrigin(world, startPos);
-
-        List<Vector3i> blocksToBreak;
-        if ("freeform".equalsIgnoreCase(pattern)) {
-            blocksToBreak = patternCalculator.getFreeformBlocks(world, startPos, targetId, effectiveLimit);
-        } else {
-            blocksToBreak = patternCalculator.getPatternBlocks(world, targetId, store, pRef, originStart, pattern, effectiveLimit, oriMode, hitFace)
-                    .stream()
-                    .map(pos -> patternCalculator.getMultiblockOrigin(world, pos))
-                    .distinct()
-                    .collect(Collectors.toList());
-        }
-
-        blocksToBreak.remove(startPos);
-        blocksToBreak.remove(originStart);
-        blocksToBreak.removeIf(pos -> pos.equals(startPos) || pos.equals(originStart));
-
-        blocksToBreak.removeIf(pos -> {
-            if (ACTIVE_VEINS.contains(pos)) return true;
-            BlockType t = world.getBlockType(pos.x, pos.y, pos.z);
-            if (t == null) return true;
-            String tid = t.getId();
-            if (tid.contains("_Cracked") && targetMode.equals("ores")) return true;
-            return !tid.equals(targetId) || blockBlacklist.contains(tid);
-        });
-
-        int neighborsLimit = Math.max(0, effectiveLimit - 1);
-        if (blocksToBreak.size() > neighborsLimit) {
-            blocksToBreak = blocksToBreak.subList(0, neighborsLimit);
-        }
+        Vector3i originStart = origins.resolve(startPos);
 
         boolean isCreative = player.getGameMode() == GameMode.Creative;
         String dropMode = cfg.getDropMode();
-        double userMultiplier = cfg.getDurabilityMultiplier();
-        Item toolItem = (tool != null) ? tool.getItem() : null;
-        double lossPerHit = (toolItem != null && toolItem.getDurabilityLossOnHit() > 0) ? toolItem.getDurabilityLossOnHit() : 1.0;
-
-        double totalDurabilityCost = 0;
-        if (!isCreative && tool != null) {
-            totalDurabilityCost += (calculateHitsToBreak(startBlockType, toolItem) * lossPerHit * userMultiplier) / (toolId.contains("Shovel") ? 20.0 : 4.0);
+        boolean streaming = cfg.isStreamingBreak() && !cfg.isInstantBreak() && "freeform".equalsIgnoreCase(pattern);
+        boolean excluded = targetMode.equals("ores") && BlockTypeIndex.isCracked(targetIndex);
+        BlockType targetType = BlockType.getAssetMap().getAsset(targetIndex);
+        int neighborsLimit = Math.max(0, effectiveLimit - 1);
+        DurabilityBudget durability = new DurabilityBudget(player, pRef, store, isCreative ? null : tool, activeContainer, activeSlot, cfg.getDurabilityMultiplier());
+        durability.charge(startBlockType);
+
+        long discoverStart = System.nanoTime();
+        List<Vector3i> discovered;
+        VeinStream stream = null;
+        if (streaming) {
+            discovered = Collections.emptyList();
+            FloodFillEngine engine = patternCalculator.streamFreeformBlocks(origins, startPos, targetIndex, effectiveLimit);
+            stream = new VeinStream(engine, startPos, originStart, targetIndex, targetType, excluded ? 0 : neighborsLimit, durability);
+        } else if ("freeform".equalsIgnoreCase(pattern)) {
+            discovered = patternCalculator.getFreeformBlocks(origins, startPos, targetIndex, effectiveLimit);
+        } else {
+            Set<Vector3i> resolved = new LinkedHashSet<>();
+            for (Vector3i pos : patternCalculator.getPatternBlocks(reader, targetIndex, store, pRef, originStart, pattern, effectiveLimit, oriMode, hitFace)) {
+                Vector3i origin = origins.resolve(pos);
+                if (origin != pos && reader.getBlockId(origin) != targetIndex) continue;
+                resolved.add(origin);
+            }
+            discovered = new ArrayList<>(resolved);
         }
 
-        List<Vector3i> finalBlocks = new ArrayList<>();
-        IS_VEIN_MINING.set(true);
-        try {
-            for (Vector3i pos : blocksToBreak) {
-                BlockType type = world.getBlockType(pos.x, pos.y, pos.z);
-                if (type == null) continue;
-                double blockCost = 0;
-                if (!isCreative && tool != null) {
-                    blockCost = (calculateHitsToBreak(type, toolItem) * lossPerHit * userMultiplier) / (toolId.contains("Shovel") ? 20.0 : 4.0);
-                    if (!tool.isUnbreakable() && (tool.getDurability() - (totalDurabilityCost + blockCost)) <= 0) break;
-                }
-                totalDurabilityCost += blockCost;
-                finalBlocks.add(pos);
-                ACTIVE_VEINS.add(pos);
-            }
-        } finally { IS_VEIN_MINING.set(false); }
+        long filterStart = System.nanoTime();
+        boolean verified = !"diagonal".equalsIgnoreCase(pattern);
+        List<VeinBlock> candidates = new ArrayList<>(Math.min(discovered.size(), neighborsLimit));
+        for (Vector3i pos : discovered) {
+            if (excluded || candidates.size() >= neighborsLimit) break;
+            if (pos.equals(startPos) || pos.equals(originStart)) continue;
+            if (ACTIVE_VEINS.contains(pos)) continue;
+            if (!verified && reader.getBlockId(pos) != targetIndex) continue;
+            candidates.add(new VeinBlock(pos, targetIndex, targetType));
+        }
 
-        if (finalBlocks.size() < blocksToBreak.size()) {
-            Set<Vector3i> scheduled = new HashSet<>(finalBlocks);
-            for (Vector3i p : blocksToBreak) {
-                if (!scheduled.contains(p)) ACTIVE_VEINS.remove(p);
-            }
+        long costStart = System.nanoTime();
+        List<VeinBlock> finalBlocks = new ArrayList<>(candidates.size());
+        for (VeinBlock block : candidates) {
+            if (block.type() == null) continue;
+            if (!durability.tryCharge(block.type())) break;
+            finalBlocks.add(block);
+            ACTIVE_VEINS.add(block.pos());
         }
+        long commitStart = System.nanoTime();
 
-        boolean bundling = cfg.isBundleDrops() && !dropMode.equalsIgnoreCase("block") && !dropMode.equalsIgnoreCase("at_block");
-        List<ItemStack> bundleAccumulator = new ArrayList<>();
+        boolean bundling = DropEmitter.isInventoryMode(dropMode) || (cfg.isBundleDrops() && !dropMode.equalsIgnoreCase("block") && !dropMode.equalsIgnoreCase("at_block"));
+        DropAccumulator bundleAccumulator = new DropAccumulator();
+        Random rand = new Random();
+        DropEmitter emitter = new DropEmitter(store, player, pRef, startPos, dropMode, rand, cfg.getMaxDropEntitiesPerVein(), cfg.getMaxDropEntitiesPerChunk());
 
         if (!isCreative) {
             if (!toolId.contains("Shears")) {
@@ -174,146 +139,320 @@ public class MiningManager {
                     if (bundling) {
                         bundleAccumulator.addAll(drops);
                     } else {
-                        spawnDropsAtPos(store, startPos, drops, new Random(), dropMode, startPos, pRef);
+                        emitter.emit(startPos, drops);
                     }
                 }
             }
         }
 
-        if (!isCreative && tool != null && !tool.isUnbreakable()) {
-            player.updateItemStackDurability(pRef, tool, activeContainer, activeSlot, -Math.min(totalDurabilityCost, tool.getDurability()), store);
-            player.getInventory();
-        }
+        if (!streaming) durability.apply();
 
-        Random rand = new Random();
         PlayerRef playerRefComp = store.getComponent(pRef, PlayerRef.getComponentType());
+        CompletableFuture<Integer> result = new CompletableFuture<>();
 
         if (cfg.isInstantBreak()) {
+            List<Vector3i> broken = new ArrayList<>(finalBlocks.size());
             IS_VEIN_MINING.set(true);
             try {
-                for (Vector3i pos : finalBlocks) {
-                    if (pos.equals(startPos)) continue;
-                    List<ItemStack> drops = breakBlockAndGetDrops(world, pos, isCreative, dropMode, store, pRef, tool, toolId);
+                for (VeinBlock block : finalBlocks) {
+                    List<ItemStack> drops = breakBlockAndGetDrops(reader, block, isCreative, store, pRef, tool, toolId);
+                    if (drops == null) continue;
                     if (bundling) {
                         bundleAccumulator.addAll(drops);
                     } else {
-                        spawnDropsAtPos(store, pos, drops, rand, dropMode, startPos, pRef);
+                        emitter.emit(block.pos(), drops);
                     }
-                    ACTIVE_VEINS.remove(pos);
+                    broken.add(block.pos());
                 }
-            } finally { IS_VEIN_MINING.set(false); }
+                BlockWriter writer = blockWriter(world, finalBlocks, startPos, cfg);
+                writer.removeAll(broken, PERFORM_BLOCK_UPDATE);
+                writer.updateExposed(PERFORM_BLOCK_UPDATE);
+            } finally {
+                IS_VEIN_MINING.set(false);
+                for (VeinBlock block : finalBlocks) ACTIVE_VEINS.remove(block.pos());
+            }
 
             if (bundling && !bundleAccumulator.isEmpty()) {
-                List<ItemStack> merged = mergeDrops(bundleAccumulator);
-                spawnDropsAtPos(store, startPos, merged, rand, dropMode, startPos, pRef);
+                List<ItemStack> merged = bundleAccumulator.drain();
+                emitter.emit(startPos, merged);
             }
+            emitter.finish();
+            logStages(discoverStart, filterStart, costStart, commitStart, System.nanoTime(), discovered.size(), finalBlocks.size());
 
-            if (playerRefComp != null) playSound(playerRefComp, "SFX_Pickaxe_T2_Impact_Nice", 7.0f, 0.7f);
+            if (playerRefComp != null) playSound(cfg, playerRefComp, "SFX_Pickaxe_T2_Impact_Nice", 7.0f, 0.7f);
+            result.complete(1 + broken.size());
         } else {
-            if (playerRefComp != null) playSound(playerRefComp, "SFX_Pickaxe_T2_Impact_Nice", 7.0f, 0.7f);
-            scheduleSpreadingBreak(playerRefComp, pRef, world, store, finalBlocks, 0, dropMode, rand, isCreative, tool, toolId, startPos, bundling, bundleAccumulator);
+            if (!streaming) logStages(discoverStart, filterStart, costStart, commitStart, commitStart, discovered.size(), finalBlocks.size());
+            if (playerRefComp != null) playSound(cfg, playerRefComp, "SFX_Pickaxe_T2_Impact_Nice", 7.0f, 0.7f);
+            BreakScheduler scheduler = BreakScheduler.forWorld(world);
+            scheduler.setLimits(cfg.isAdaptiveBreak(), cfg.getBreakBlocksPerTick(), cfg.getBreakMaxBlocksPerTick(), cfg.getBreakTickBudgetMicros());
+            scheduler.submit(uuid, new SpreadingBreakJob(playerRefComp, pRef, reader, store, finalBlocks, stream, durability, blockWriter(world, finalBlocks, startPos, cfg), rand, isCreative, tool, toolId, startPos, bundling, bundleAccumulator, emitter, cfg, result));
         }
+        return result;
     }
 
-    private List<ItemStack> breakBlockAndGetDrops(World world, Vector3i pos, boolean isCreative, String dropMode, Store<EntityStore> store, Ref<EntityStore> entityRef, ItemStack tool, String toolId) {
-        List<ItemStack> drops = new ArrayList<>();
-        BlockType type = world.getBlockType(pos.x, pos.y, pos.z);
-        if (type == null) return drops;
+    private void logStages(long discoverStart, long filterStart, long costStart, long commitStart, long end, int discovered, int scheduled) {
+        LOGGER.at(Level.FINE).log("Vein of " + scheduled + "/" + discovered + " blocks: discover=" + (filterStart - discoverStart) / 1000
+                + "us filter=" + (costStart - filterStart) / 1000 + "us cost=" + (commitStart - costStart) / 1000
+                + "us commit=" + (end - commitStart) / 1000 + "us");
+    }
+
+    private BlockWriter blockWriter(World world, List<VeinBlock> blocks, Vector3i startPos, VeinMiningConfig.Snapshot cfg) {
+        if (!cfg.isBoundaryBlockUpdates()) return new BlockWriter(world);
+        List<Vector3i> vein = new ArrayList<>(blocks.size() + 1);
+        for (VeinBlock block : blocks) vein.add(block.pos());
+        vein.add(startPos);
+        return new BlockWriter(world, vein);
+    }
 
-        BreakBlockEvent breakEvent = new BreakBlockEvent(tool, pos, type);
+    private List<ItemStack> breakBlockAndGetDrops(BlockReader reader, VeinBlock block, boolean isCreative, Store<EntityStore> store, Ref<EntityStore> entityRef, ItemStack tool, String toolId) {
+        Vector3i pos = block.pos();
+        if (reader.getBlockId(pos) != block.blockId()) return null;
+
+        BreakBlockEvent breakEvent = new BreakBlockEvent(tool, pos, block.type());
         store.invoke(entityRef, breakEvent);
 
+        List<ItemStack> drops = new ArrayList<>();
         if (!isCreative) {
-            drops.addAll(getRealDrops(world, pos, type, toolId));
+            drops.addAll(getRealDrops(reader.getWorld(), pos, block.type(), toolId));
         }
-        world.setBlock(pos.x, pos.y, pos.z, "Empty", PERFORM_BLOCK_UPDATE);
         return drops;
     }
 
-    private void scheduleSpreadingBreak(PlayerRef playerRef, Ref<EntityStore> entityRef, World world, Store<EntityStore> store, List<Vector3i> blocks, int index, String dropMode, Random rand, boolean isCreative, ItemStack tool, String toolId, Vector3i sourcePos, boolean bundling, List<ItemStack> accumulator) {
-        if (index >= blocks.size()) {
-            if (bundling && accumulator != null && !accumulator.isEmpty()) {
-                List<ItemStack> merged = mergeDrops(accumulator);
-                spawnDropsAtPos(store, sourcePos, merged, rand, dropMode, sourcePos, entityRef);
+    private class SpreadingBreakJob implements BreakScheduler.Job {
+        private final PlayerRef playerRef;
+        private final Ref<EntityStore> entityRef;
+        private final BlockReader reader;
+        private final Store<EntityStore> store;
+        private final List<VeinBlock> blocks;
+        private final VeinStream stream;
+        private final DurabilityBudget durability;
+        private final Random rand;
+        private final boolean isCreative;
+        private final ItemStack tool;
+        private final String toolId;
+        private final Vector3i sourcePos;
+        private final boolean bundling;
+        private final DropAccumulator accumulator;
+        private final DropEmitter emitter;
+        private final BlockWriter writer;
+        private final VeinMiningConfig.Snapshot cfg;
+        private final CompletableFuture<Integer> result;
+        private int index;
+        private int broken;
+
+        SpreadingBreakJob(PlayerRef playerRef, Ref<EntityStore> entityRef, BlockReader reader, Store<EntityStore> store, List<VeinBlock> blocks, VeinStream stream, DurabilityBudget durability, BlockWriter writer, Random rand, boolean isCreative, ItemStack tool, String toolId, Vector3i sourcePos, boolean bundling, DropAccumulator accumulator, DropEmitter emitter, VeinMiningConfig.Snapshot cfg, CompletableFuture<Integer> result) {
+            this.playerRef = playerRef; this.entityRef = entityRef; this.reader = reader; this.store = store; this.blocks = blocks;
+            this.stream = stream; this.durability = durability;
+            this.rand = rand; this.isCreative = isCreative; this.tool = tool; this.toolId = toolId;
+            this.sourcePos = sourcePos; this.bundling = bundling; this.accumulator = accumulator; this.emitter = emitter;
+            this.writer = writer;
+            this.cfg = cfg;
+            this.result = result;
+        }
+
+        @Override
+        public boolean isValid() {
+            return entityRef.isValid();
+        }
+
+        @Override
+        public int getBroken() {
+            return broken;
+        }
+
+        @Override
+        public boolean breakNext() {
+            reader.invalidate();
+            while (index < blocks.size() || (stream != null && stream.next(blocks, writer))) {
+                VeinBlock block = blocks.get(index++);
+                List<ItemStack> drops = null;
+                IS_VEIN_MINING.set(true);
+                try {
+                    drops = breakBlockAndGetDrops(reader, block, isCreative, store, entityRef, tool, toolId);
+                    if (drops != null) writer.remove(block.pos(), PERFORM_BLOCK_UPDATE);
+                } finally {
+                    IS_VEIN_MINING.set(false);
+                    ACTIVE_VEINS.remove(block.pos());
+                }
+                if (drops == null) continue;
+                broken++;
+
+                if (rand.nextFloat() < 0.20f && playerRef != null) {
+                    playSound(cfg, playerRef, "SFX_Stone_Break", 0.5f, 0.8f + rand.nextFloat() * 0.4f);
+                }
+                if (bundling) {
+                    accumulator.addAll(drops);
+                } else {
+                    emitter.emit(block.pos(), drops);
+                }
+                return index < blocks.size() || (stream != null && !stream.isDone());
             }
-            return;
+            return false;
         }
-        int batchSize = 3 + rand.nextInt(3);
-        int end = Math.min(index + batchSize, blocks.size());
-        for (int i = index; i < end; i++) {
-            Vector3i pos = blocks.get(i);
-            if (pos.equals(sourcePos)) continue;
-
-            if (rand.nextFloat() < 0.20f && playerRef != null) {
-                playSound(playerRef, "SFX_Stone_Break", 0.5f, 0.8f + rand.nextFloat() * 0.4f);
+
+        @Override
+        public void complete() {
+            updateExposed();
+            result.complete(1 + broken);
+            if (!entityRef.isValid()) return;
+            durability.apply();
+            if (bundling && !accumulator.isEmpty()) {
+                List<ItemStack> merged = accumulator.drain();
+                emitter.emit(sourcePos, merged);
             }
+            emitter.finish();
+        }
+
+        @Override
+        public void abort() {
+            updateExposed();
+            if (stream != null) stream.close();
+            if (entityRef.isValid()) durability.apply();
+            while (index < blocks.size()) ACTIVE_VEINS.remove(blocks.get(index++).pos());
+            result.complete(1 + broken);
+        }
+
+        // Vein blocks skipped at commit or cut by durability stay in place; their interior neighbours still need an update.
+        private void updateExposed() {
             IS_VEIN_MINING.set(true);
             try {
-                List<ItemStack> drops = breakBlockAndGetDrops(world, pos, isCreative, dropMode, store, entityRef, tool, toolId);
-                if (bundling && accumulator != null) {
-                    accumulator.addAll(drops);
-                } else {
-                    spawnDropsAtPos(store, pos, drops, rand, dropMode, sourcePos, entityRef);
-                }
+                writer.updateExposed(PERFORM_BLOCK_UPDATE);
             } finally {
                 IS_VEIN_MINING.set(false);
             }
-            ACTIVE_VEINS.remove(pos);
         }
-        CompletableFuture.delayedExecutor(4L + rand.nextInt(5), TimeUnit.MILLISECONDS, world).execute(() -> scheduleSpreadingBreak(playerRef, entityRef, world, store, blocks, end, dropMode, rand, isCreative, tool, toolId, sourcePos, bundling, accumulator));
     }
 
-    private List<ItemStack> mergeDrops(List<ItemStack> drops) {
-        List<ItemStack> merged = new ArrayList<>();
-        for (ItemStack drop : drops) {
-            if (drop == null || drop.isEmpty()) continue;
-            boolean added = false;
-            for (int i = 0; i < merged.size(); i++) {
-                ItemStack existing = merged.get(i);
-                if (existing.isStackableWith(drop)) {
-                    merged.set(i, existing.withQuantity(existing.getQuantity() + drop.getQuantity()));
-                    added = true;
+    private class VeinStream {
+        private final FloodFillEngine engine;
+        private final Vector3i startPos;
+        private final Vector3i originStart;
+        private final int targetIndex;
+        private final BlockType targetType;
+        private final DurabilityBudget durability;
+        private final List<Vector3i> shell = new ArrayList<>();
+        private int remaining;
+        private boolean done;
+
+        VeinStream(FloodFillEngine engine, Vector3i startPos, Vector3i originStart, int targetIndex, BlockType targetType, int limit, DurabilityBudget durability) {
+            this.engine = engine; this.startPos = startPos; this.originStart = originStart;
+            this.targetIndex = targetIndex; this.targetType = targetType; this.remaining = limit; this.durability = durability;
+        }
+
+        boolean next(List<VeinBlock> out, BlockWriter writer) {
+            while (!done) {
+                shell.clear();
+                if (remaining <= 0 || targetType == null || !engine.advance(shell)) {
+                    done = true;
                     break;
                 }
+                int before = out.size();
+                for (Vector3i pos : shell) {
+                    if (pos.equals(startPos) || pos.equals(originStart)) continue;
+                    if (ACTIVE_VEINS.contains(pos)) continue;
+                    if (!durability.tryCharge(targetType)) {
+                        remaining = 0;
+                        break;
+                    }
+                    out.add(new VeinBlock(pos, targetIndex, targetType));
+                    ACTIVE_VEINS.add(pos);
+                    writer.include(pos);
+                    if (--remaining <= 0) break;
+                }
+                if (!durability.apply()) {
+                    while (out.size() > before) ACTIVE_VEINS.remove(out.remove(out.size() - 1).pos());
+                    done = true;
+                    break;
+                }
+                if (out.size() > before) return true;
             }
-            if (!added) {
-                merged.add(drop);
-            }
+            return false;
+        }
+
+        boolean isDone() {
+            return done;
+        }
+
+        void close() {
+            done = true;
+        }
+    }
+
+    private class DurabilityBudget {
+        private final Player player;
+        private final Ref<EntityStore> pRef;
+        private final Store<EntityStore> store;
+        private final ItemStack tool;
+        private final Item toolItem;
+        private final ItemContainer container;
+        private final short slot;
+        private final double costPerHit;
+        private double total;
+        private double applied;
+
+        DurabilityBudget(Player player, Ref<EntityStore> pRef, Store<EntityStore> store, ItemStack tool, ItemContainer container, short slot, double multiplier) {
+            this.player = player; this.pRef = pRef; this.store = store; this.tool = tool; this.container = container; this.slot = slot;
+            this.toolItem = (tool != null) ? tool.getItem() : null;
+            double lossPerHit = (toolItem != null && toolItem.getDurabilityLossOnHit() > 0) ? toolItem.getDurabilityLossOnHit() : 1.0;
+            String toolId = (toolItem != null) ? toolItem.getId() : "";
+            this.costPerHit = lossPerHit * multiplier / (toolId.contains("Shovel") ? 20.0 : 4.0);
+        }
+
+        void charge(BlockType type) {
+            total += costOf(type);
+        }
+
+        boolean tryCharge(BlockType type) {
+            double cost = costOf(type);
+            if (tool != null && !tool.isUnbreakable() && (tool.getDurability() - (total + cost)) <= 0) return false;
+            total += cost;
+            return true;
+        }
+
+        boolean apply() {
+            if (tool == null || tool.isUnbreakable()) return true;
+            double delta = total - applied;
+            if (delta <= 0) return true;
+            ItemStack current = container.getItemStack(slot);
+            if (current == null || current.isEmpty() || !tool.getItemId().equals(current.getItemId())) return false;
+            applied = total;
+            player.updateItemStackDurability(pRef, current, container, slot, -Math.min(delta, current.getDurability()), store);
+            return true;
+        }
+
+        private double costOf(BlockType type) {
+            return tool == null ? 0 : calculateHitsToBreak(type, toolItem) * costPerHit;
         }
-        return merged;
     }
 
-    @SuppressWarnings("unchecked")
     private List<ItemStack> getRealDrops(World world, Vector3i pos, BlockType type, String toolId) {
         List<ItemStack> res = new ArrayList<>();
-        if (type == null || "Empty".equals(type.getId())) return res;
+        if (type == null) return res;
+        MiningProfile profile = MiningProfile.of(type);
+        if (profile.isEmpty()) return res;
 
         if (toolId != null && toolId.contains("Shears")) {
-            String id = (type.getItem() != null) ? type.getItem().getId() : type.getId();
+            String id = profile.getBlockItemId();
             if (isValidId(id)) { res.add(new ItemStack(id, 1)); return res; }
         }
-        BlockGathering g = type.getGathering(); if (g == null) return res;
-        if (g.shouldUseDefaultDropWhenPlaced() && isDecoBlock(world, pos)) {
-            String id = (type.getItem() != null) ? type.getItem().getId() : type.getId();
+        if (!profile.hasGathering()) return res;
+        if (profile.isDefaultDropWhenPlaced() && isDecoBlock(world, pos)) {
+            String id = profile.getBlockItemId();
             if (isValidId(id)) res.add(new ItemStack(id, 1)); return res;
         }
-        String dlid = null; String iid = null; int qty = 1;
-        if (g.getBreaking() != null) { dlid = g.getBreaking().getDropListId(); iid = g.getBreaking().getItemId(); qty = g.getBreaking().getQuantity(); }
-        else if (g.getSoft() != null) { dlid = g.getSoft().getDropListId(); iid = g.getSoft().getItemId(); }
+        String dlid = profile.getDropListId(); String iid = profile.getDropItemId(); int qty = profile.getDropQuantity();
         if (dlid != null || iid != null) {
-            if (dlid != null && GET_DROPS_METHOD != null && ITEM_MODULE_INSTANCE != null) try {
+            if (dlid != null) {
                 for (int i = 0; i < qty; i++) {
-                    List<ItemStack> d = (List<ItemStack>) GET_DROPS_METHOD.invoke(ITEM_MODULE_INSTANCE, dlid);
-                    if (d != null) {
-                        for (ItemStack s : d) {
-                            if (s != null && isValidId(s.getItemId())) res.add(s);
-                        }
+                    for (ItemStack s : DropRoller.roll(dlid)) {
+                        if (s != null && isValidId(s.getItemId())) res.add(s);
                     }
                 }
-            } catch (Exception ignored) {}
+            }
             if (isValidId(iid)) res.add(new ItemStack(iid, qty)); return res;
         }
-        String fid = (type.getItem() != null) ? type.getItem().getId() : type.getId();
+        String fid = profile.getBlockItemId();
         if (isValidId(fid)) res.add(new ItemStack(fid, 1)); return res;
     }
 
@@ -328,43 +467,12 @@ public class MiningManager {
         } catch (Exception ignored) {} return false;
     }
 
-    private void spawnDropsAtPos(Store<EntityStore> store, Vector3i blockPos, List<ItemStack> drops, Random rand, String dropMode, Vector3i sourcePos, Ref<EntityStore> playerRef) {
-        Vector3d base;
-        String mode = dropMode.toLowerCase().trim();
-
-        if (mode.equals("at_player") || mode.equals("player")) {
-            TransformComponent t = store.getComponent(playerRef, TransformComponent.getComponentType());
-            if (t != null) {
-                base = t.getPosition().clone().add(0, 0.2, 0);
-            } else {
-                base = new Vector3d(sourcePos.x + 0.5, sourcePos.y + 0.5, sourcePos.z + 0.5);
-            }
-        } else if (mode.equals("at_break") || mode.equals("break")) {
-            base = new Vector3d(sourcePos.x + 0.5, sourcePos.y + 0.5, sourcePos.z + 0.5);
-        } else {
-            base = new Vector3d(blockPos.x + 0.5, blockPos.y + 0.5, blockPos.z + 0.5);
-        }
-
-        for (ItemStack stack : drops) spawnStack(store, base, stack, rand);
-    }
-
-    private void spawnStack(Store<EntityStore> store, Vector3d base, ItemStack stack, Random rand) {
-        if (stack == null || !isValidId(stack.getItemId())) return;
-        Vector3d pos = base.add(new Vector3d((rand.nextDouble() - 0.5) * 0.5, (rand.nextDouble() - 0.5) * 0.5, (rand.nextDouble() - 0.5) * 0.5));
-        Holder<EntityStore> item = ItemComponent.generateItemDrop(store, stack, pos, Vector3f.ZERO, 0, 0.15f, 0);
-        if (item != null) store.addEntity(item, AddReason.SPAWN);
-    }
-
-    private void playSound(PlayerRef ref, String sound, float vol, float pitch) {
-        if (!config.get().isMasterSoundEnabled()) return;
+    private void playSound(VeinMiningConfig.Snapshot cfg, PlayerRef ref, String sound, float vol, float pitch) {
+        if (!cfg.isMasterSoundEnabled()) return;
         try { SoundUtil.playSoundEvent2dToPlayer(ref, SoundEvent.getAssetMap().getIndex(sound), SoundCategory.SFX, vol, pitch); } catch (Exception ignored) {}
     }
 
     private double calculateHitsToBreak(BlockType type, Item tool) {
-        if (tool == null) return 5.0; BlockGathering g = type.getGathering(); if (g == null || g.getBreaking() == null) return 1.0;
-        BlockBreakingDropType b = g.getBreaking(); String req = (b.getGatherType() != null) ? b.getGatherType() : "pickaxe";
-        int qual = (b.getQuality() > 0) ? b.getQuality() : 1; ItemTool tc = tool.getTool(); if (tc == null || tc.getSpecs() == null) return 5.0;
-        for (ItemToolSpec s : tc.getSpecs()) { if (s.getGatherType().equalsIgnoreCase(req)) return (s.getPower() > 0) ? (double) qual / s.getPower() : 10.0; }
-        return 10.0;
+        return MiningProfile.of(type).getHitsToBreak(tool);
     }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.einent.veinmining.systems;
+
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockBreakingDropType;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockGathering;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.asset.type.item.config.ItemTool;
+import com.hypixel.hytale.server.core.asset.type.item.config.ItemToolSpec;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MiningProfile {
+
+    private static volatile MiningProfile[] profiles = new MiningProfile[0];
+
+    private final boolean empty;
+    private final String blockItemId;
+    private final boolean hasGathering;
+    private final boolean defaultDropWhenPlaced;
+    private final String dropListId;
+    private final String dropItemId;
+    private final int dropQuantity;
+    private final boolean hasBreaking;
+    private final String gatherType;
+    private final int quality;
+    private final Map<String, Double> hitsByTool = new ConcurrentHashMap<>();
+
+    private MiningProfile(BlockType type) {
+        this.empty = "Empty".equals(type.getId());
+        this.blockItemId = (type.getItem() != null) ? type.getItem().getId() : type.getId();
+
+        BlockGathering g = type.getGathering();
+        this.hasGathering = g != null;
+        this.defaultDropWhenPlaced = g != null && g.shouldUseDefaultDropWhenPlaced();
+
+        String dlid = null;
+        String iid = null;
+        int qty = 1;
+        if (g != null && g.getBreaking() != null) {
+            dlid = g.getBreaking().getDropListId();
+            iid = g.getBreaking().getItemId();
+            qty = g.getBreaking().getQuantity();
+        } else if (g != null && g.getSoft() != null) {
+            dlid = g.getSoft().getDropListId();
+            iid = g.getSoft().getItemId();
+        }
+        this.dropListId = dlid;
+        this.dropItemId = iid;
+        this.dropQuantity = qty;
+
+        BlockBreakingDropType b = (g != null) ? g.getBreaking() : null;
+        this.hasBreaking = b != null;
+        this.gatherType = (b != null && b.getGatherType() != null) ? b.getGatherType() : "pickaxe";
+        this.quality = (b != null && b.getQuality() > 0) ? b.getQuality() : 1;
+    }
+
+    public static MiningProfile of(BlockType type) {
+        int index = BlockTypeIndex.indexOf(type);
+        if (index < 0) return new MiningProfile(type);
+        MiningProfile[] p = profiles;
+        if (index < p.length && p[index] != null) return p[index];
+        return create(index, type);
+    }
+
+    public static synchronized void invalidateAll() {
+        profiles = new MiningProfile[0];
+    }
+
+    private static synchronized MiningProfile create(int index, BlockType type) {
+        MiningProfile[] p = profiles;
+        if (index >= p.length) {
+            p = Arrays.copyOf(p, Math.max(index + 1, p.length * 2));
+        }
+        if (p[index] == null) {
+            p[index] = new MiningProfile(type);
+        }
+        profiles = p;
+        return p[index];
+    }
+
+    public double getHitsToBreak(Item tool) {
+        if (tool == null) return 5.0;
+        if (!hasBreaking) return 1.0;
+        return hitsByTool.computeIfAbsent(tool.getId(), id -> computeHits(tool));
+    }
+
+    private double computeHits(Item tool) {
+        ItemTool tc = tool.getTool();
+        if (tc == null || tc.getSpecs() == null) return 5.0;
+        for (ItemToolSpec s : tc.getSpecs()) {
+            if (s.getGatherType().equalsIgnoreCase(gatherType)) return (s.getPower() > 0) ? (double) quality / s.getPower() : 10.0;
+        }
+        return 10.0;
+    }
+
+    public boolean isEmpty() { return empty; }
+    public String getBlockItemId() { return blockItemId; }
+    public boolean hasGathering() { return hasGathering; }
+    public boolean isDefaultDropWhenPlaced() { return defaultDropWhenPlaced; }
+    public String getDropListId() { return dropListId; }
+    public String getDropItemId() { return dropItemId; }
+    public int getDropQuantity() { return dropQuantity; }
+    public String getGatherType() { return gatherType; }
+}
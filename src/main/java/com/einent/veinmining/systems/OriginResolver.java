@@ -0,0 +1,32 @@
+package com.einent.veinmining.systems;
+
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.util.FillerBlockUtil;
+
+public class OriginResolver {
+
+    private final BlockReader reader;
+
+    public OriginResolver(BlockReader reader) {
+        this.reader = reader;
+    }
+
+    public BlockReader getReader() {
+        return reader;
+    }
+
+    public Vector3i resolve(Vector3i pos) {
+        int filler = getFiller(pos.x, pos.y, pos.z);
+        int fx = FillerBlockUtil.unpackX(filler);
+        int fy = FillerBlockUtil.unpackY(filler);
+        int fz = FillerBlockUtil.unpackZ(filler);
+        if (fx != 0 || fy != 0 || fz != 0) {
+            return new Vector3i(pos.x - fx, pos.y - fy, pos.z - fz);
+        }
+        return pos;
+    }
+
+    public int getFiller(int x, int y, int z) {
+        return reader.getFiller(x, y, z);
+    }
+}
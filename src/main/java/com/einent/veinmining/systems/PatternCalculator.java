@@ -2,90 +2,40 @@ package com.einent.veinmining.systems;
 
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
-import com.hypixel.hytale.math.util.ChunkUtil;
 import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.math.vector.Vector3f;
 import com.hypixel.hytale.math.vector.Vector3i;
-import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.modules.entity.component.HeadRotation;
 import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
-import com.hypixel.hytale.server.core.universe.world.World;
-import com.hypixel.hytale.server.core.universe.world.chunk.BlockChunk;
-import com.hypixel.hytale.server.core.universe.world.chunk.section.BlockSection;
-import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
-import com.hypixel.hytale.server.core.util.FillerBlockUtil;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
 public class PatternCalculator {
 
-    public List<Vector3i> getFreeformBlocks(World world, Vector3i startPos, String targetId, int max) {
-        List<Vector3i> result = new ArrayList<>();
-        Queue<Vector3i> queue = new LinkedList<>();
-        Set<Vector3i> visitedPhysical = new HashSet<>();
-        Set<Vector3i> visitedOrigins = new HashSet<>();
-
-        Vector3i startOrigin = getMultiblockOrigin(world, startPos);
-        visitedOrigins.add(startOrigin);
-        result.add(startOrigin);
-
-        visitedPhysical.add(startPos);
-        addNeighbors(startPos, queue, visitedPhysical);
+    private final ThreadLocal<FloodFillEngine> floodFill = ThreadLocal.withInitial(FloodFillEngine::new);
 
+    public List<Vector3i> getFreeformBlocks(OriginResolver origins, Vector3i startPos, int targetIndex, int max) {
+        BlockReader reader = origins.getReader();
         int bufferLimit = Math.min(max * 10, 4096);
-
-        while (!queue.isEmpty() && visitedPhysical.size() < bufferLimit) {
-            Vector3i pos = queue.poll();
-            BlockType type = world.getBlockType(pos.x, pos.y, pos.z);
-
-            if (type != null && type.getId().equals(targetId)) {
-                Vector3i origin = getMultiblockOrigin(world, pos);
-
-                if (!visitedOrigins.contains(origin)) {
-                    visitedOrigins.add(origin);
-                    result.add(origin);
-                }
-
-                addNeighbors(pos, queue, visitedPhysical);
-            }
-        }
-
-        result.sort(Comparator.<Vector3i>comparingInt(vec -> {
-            int dx = Math.abs(vec.x - startOrigin.x);
-            int dy = Math.abs(vec.y - startOrigin.y);
-            int dz = Math.abs(vec.z - startOrigin.z);
-            return Math.max(dx, Math.max(dy, dz));
-        }).thenComparingDouble(vec -> {
-            double dx = vec.x - startOrigin.x;
-            double dy = vec.y - startOrigin.y;
-            double dz = vec.z - startOrigin.z;
-            return dx * dx + dy * dy + dz * dz;
-        }));
-
-        if (result.size() > max) {
-            return result.subList(0, max);
-        }
-        return result;
+        return floodFill.get().search(startPos.x, startPos.y, startPos.z, bufferLimit, max,
+                (x, y, z) -> reader.getBlockId(x, y, z) == targetIndex,
+                origins::getFiller,
+                (x, y, z) -> reader.sectionMayContain(x, y, z, targetIndex));
     }
 
-    private void addNeighbors(Vector3i pos, Queue<Vector3i> queue, Set<Vector3i> visited) {
-        for (int x = -1; x <= 1; x++) {
-            for (int y = -1; y <= 1; y++) {
-                for (int z = -1; z <= 1; z++) {
-                    if (x == 0 && y == 0 && z == 0) continue;
-                    Vector3i next = new Vector3i(pos.x + x, pos.y + y, pos.z + z);
-                    if (!visited.contains(next)) {
-                        visited.add(next);
-                        queue.add(next);
-                    }
-                }
-            }
-        }
+    public FloodFillEngine streamFreeformBlocks(OriginResolver origins, Vector3i startPos, int targetIndex, int max) {
+        BlockReader reader = origins.getReader();
+        FloodFillEngine engine = new FloodFillEngine();
+        engine.begin(startPos.x, startPos.y, startPos.z, Math.min(max * 10, 4096),
+                (x, y, z) -> reader.getBlockId(x, y, z) == targetIndex,
+                origins::getFiller,
+                (x, y, z) -> reader.sectionMayContain(x, y, z, targetIndex));
+        return engine;
     }
 
-    public List<Vector3i> getPatternBlocks(World world, String targetId, Store<EntityStore> store, Ref<EntityStore> ref, Vector3i start, String pattern, int max, String oriMode, Vector3i hitFace) {
+    public List<Vector3i> getPatternBlocks(BlockReader reader, int targetIndex, Store<EntityStore> store, Ref<EntityStore> ref, Vector3i start, String pattern, int max, String oriMode, Vector3i hitFace) {
         List<Vector3i> candidates = new ArrayList<>();
 
         HeadRotation headRot = store.getComponent(ref, HeadRotation.getComponentType());
@@ -197,8 +147,7 @@ public class PatternCalculator {
                             int h = dot(offset, up);
 
                             if (d >= minD && d <= maxD && w >= minW && w <= maxW && h >= minH && h <= maxH) {
-                                BlockType type = world.getBlockType(neighbor.x, neighbor.y, neighbor.z);
-                                if (type != null && type.getId().equals(targetId)) {
+                                if (reader.getBlockId(neighbor.x, neighbor.y, neighbor.z) == targetIndex) {
                                     visited.add(neighbor);
                                     queue.add(neighbor);
                                 }
@@ -234,37 +183,31 @@ public class PatternCalculator {
             }
         }
 
-        candidates.sort(Comparator.comparingDouble(pos -> distanceSq(pos, start)));
-        return candidates;
+        return sortByDistance(candidates, start);
     }
 
-    private int dot(Vector3i v, Vector3i axis) {
-        return v.x * axis.x + v.y * axis.y + v.z * axis.z;
+    private List<Vector3i> sortByDistance(List<Vector3i> candidates, Vector3i start) {
+        FloodFillEngine.LongBuckets buckets = new FloodFillEngine.LongBuckets();
+        for (int i = 0; i < candidates.size(); i++) {
+            long distSq = (long) distanceSq(candidates.get(i), start);
+            buckets.add((int) Math.sqrt(distSq), (distSq << 32) | i);
+        }
+        List<Vector3i> out = new ArrayList<>(candidates.size());
+        long[] keys = new long[0];
+        while (!buckets.isEmpty()) {
+            int bucket = buckets.lowest();
+            int n = buckets.size(bucket);
+            if (keys.length < n) keys = new long[n];
+            for (int i = 0; i < n; i++) keys[i] = buckets.get(bucket, i);
+            Arrays.sort(keys, 0, n);
+            for (int i = 0; i < n; i++) out.add(candidates.get((int) keys[i]));
+            buckets.clear(bucket);
+        }
+        return out;
     }
 
-    public Vector3i getMultiblockOrigin(World world, Vector3i pos) {
-        try {
-            ChunkStore chunkStore = world.getChunkStore();
-            Store<ChunkStore> store = chunkStore.getStore();
-            long chunkIndex = ChunkUtil.indexChunkFromBlock(pos.x, pos.z);
-            Ref<ChunkStore> chunkRef = chunkStore.getChunkReference(chunkIndex);
-
-            if (chunkRef != null && chunkRef.isValid()) {
-                BlockChunk blockChunk = store.getComponent(chunkRef, BlockChunk.getComponentType());
-                if (blockChunk != null) {
-                    @SuppressWarnings("deprecation")
-                    BlockSection section = blockChunk.getSectionAtBlockY(pos.y);
-                    int filler = section.getFiller(pos.x, pos.y, pos.z);
-                    int fx = FillerBlockUtil.unpackX(filler);
-                    int fy = FillerBlockUtil.unpackY(filler);
-                    int fz = FillerBlockUtil.unpackZ(filler);
-                    if (fx != 0 || fy != 0 || fz != 0) {
-                        return new Vector3i(pos.x - fx, pos.y - fy, pos.z - fz);
-                    }
-                }
-            }
-        } catch (Exception ignored) {}
-        return pos;
+    private int dot(Vector3i v, Vector3i axis) {
+        return v.x * axis.x + v.y * axis.y + v.z * axis.z;
     }
 
     public Vector3i getHitFace(Vector3i target, Store<EntityStore> store, Ref<EntityStore> ref) {
@@ -0,0 +1,101 @@
+package com.einent.veinmining.systems;
+
+import com.einent.veinmining.config.VeinMiningConfig;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class RateLimiter {
+
+    private static final long SWEEP_INTERVAL_NANOS = 60_000_000_000L;
+
+    private final Map<String, TokenBucket> playerBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> groupBuckets = new ConcurrentHashMap<>();
+    private volatile long lastSweep = System.nanoTime();
+
+    public int acquire(String uuid, VeinMiningConfig.GroupSettings group, int requested) {
+        if (group == null || requested <= 0) return requested;
+        sweepIfDue();
+
+        TokenBucket player = bucket(playerBuckets, uuid, group.blocksPerSecond, group.blockBurst);
+        TokenBucket shared = bucket(groupBuckets, group.name, group.groupBlocksPerSecond, group.groupBlockBurst);
+
+        int granted = requested;
+        if (player != null) granted = player.take(granted);
+        if (shared != null) {
+            int sharedGranted = shared.take(granted);
+            if (player != null && sharedGranted < granted) player.give(granted - sharedGranted);
+            granted = sharedGranted;
+        }
+        return granted;
+    }
+
+    public void refund(String uuid, VeinMiningConfig.GroupSettings group, int unused) {
+        if (group == null || unused <= 0) return;
+        TokenBucket player = playerBuckets.get(uuid);
+        if (player != null) player.give(unused);
+        TokenBucket shared = groupBuckets.get(group.name);
+        if (shared != null) shared.give(unused);
+    }
+
+    private TokenBucket bucket(Map<String, TokenBucket> buckets, String key, int perSecond, int burst) {
+        if (key == null || perSecond <= 0) {
+            if (key != null) buckets.remove(key);
+            return null;
+        }
+        int capacity = Math.max(burst, perSecond);
+        TokenBucket b = buckets.computeIfAbsent(key, k -> new TokenBucket(perSecond, capacity));
+        b.configure(perSecond, capacity);
+        return b;
+    }
+
+    private void sweepIfDue() {
+        long now = System.nanoTime();
+        if (now - lastSweep < SWEEP_INTERVAL_NANOS) return;
+        lastSweep = now;
+        playerBuckets.values().removeIf(b -> b.isFull(now));
+        groupBuckets.values().removeIf(b -> b.isFull(now));
+    }
+
+    private static class TokenBucket {
+        private double ratePerNano;
+        private double capacity;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(int perSecond, int capacity) {
+            this.ratePerNano = perSecond / 1e9;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        synchronized void configure(int perSecond, int capacity) {
+            this.ratePerNano = perSecond / 1e9;
+            this.capacity = capacity;
+            if (tokens > capacity) tokens = capacity;
+        }
+
+        synchronized int take(int requested) {
+            refill(System.nanoTime());
+            int granted = (int) Math.min(requested, Math.floor(tokens));
+            if (granted <= 0) return 0;
+            tokens -= granted;
+            return granted;
+        }
+
+        synchronized void give(int amount) {
+            tokens = Math.min(capacity, tokens + amount);
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+            lastRefill = now;
+        }
+    }
+}
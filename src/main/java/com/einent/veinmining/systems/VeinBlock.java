@@ -0,0 +1,7 @@
+package com.einent.veinmining.systems;
+
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+
+public record VeinBlock(Vector3i pos, int blockId, BlockType type) {
+}
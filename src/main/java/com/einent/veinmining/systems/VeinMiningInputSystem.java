@@ -1,5 +1,7 @@
 package com.einent.veinmining.systems;
 
+import com.einent.veinmining.config.PlayerDataStore;
+import com.einent.veinmining.config.PlayerPolicy;
 import com.einent.veinmining.config.VeinMiningConfig;
 import com.hypixel.hytale.component.ArchetypeChunk;
 import com.hypixel.hytale.component.CommandBuffer;
@@ -26,6 +28,7 @@ import java.util.Map;
 public class VeinMiningInputSystem extends EntityTickingSystem<EntityStore> {
 
     private final Config<VeinMiningConfig> config;
+    private final PlayerDataStore players;
     private final Map<String, InputState> playerStates = new HashMap<>();
     private final Query<EntityStore> query;
 
@@ -33,8 +36,9 @@ public class VeinMiningInputSystem extends EntityTickingSystem<EntityStore> {
             "freeform", "cube", "wall3", "wall5", "tunnel3", "tunnel2", "tunnel1", "diagonal"
     );
 
-    public VeinMiningInputSystem(Config<VeinMiningConfig> config) {
+    public VeinMiningInputSystem(Config<VeinMiningConfig> config, PlayerDataStore players) {
         this.config = config;
+        this.players = players;
         this.query = Query.any();
     }
 
@@ -48,13 +52,12 @@ public class VeinMiningInputSystem extends EntityTickingSystem<EntityStore> {
         if (player == null || moveComp == null || uuidComp == null) return;
 
         String uuid = uuidComp.getUuid().toString();
-        VeinMiningConfig cfg = config.get();
-        boolean isAdmin = player.hasPermission("veinmining.admin");
-        VeinMiningConfig.GroupSettings group = cfg.resolveGroup(player);
+        VeinMiningConfig.Snapshot cfg = config.get().snapshot();
+        PlayerPolicy policy = cfg.getPolicy(uuid);
 
-        if (!cfg.isModEnabled(uuid, isAdmin)) return;
+        if (!policy.isModEnabled() || !players.ensureLoaded(uuid)) return;
 
-        String activationMode = cfg.getPlayerActivation(uuid);
+        String activationMode = players.getActivation(uuid);
         if ("always".equalsIgnoreCase(activationMode)) return;
 
         MovementStates states = moveComp.getMovementStates();
@@ -67,19 +70,18 @@ public class VeinMiningInputSystem extends EntityTickingSystem<EntityStore> {
             if (cfg.isQuickSwitchEnabled() && currentTime - state.lastPressTime < 350) {
                 List<String> allowed = new ArrayList<>();
                 for (String p : ALL_PATTERNS) {
-                    if (cfg.isPatternAllowed(uuid, p, group, isAdmin)) {
+                    if (policy.isPatternAllowed(p)) {
                         allowed.add(p);
                     }
                 }
 
                 if (allowed.size() > 1) {
-                    String current = cfg.getPlayerPattern(uuid);
+                    String current = players.getPattern(uuid);
                     int idx = allowed.indexOf(current);
                     int nextIdx = (idx + 1) % allowed.size();
                     String nextPattern = allowed.get(nextIdx);
 
-                    cfg.setPlayerPattern(uuid, nextPattern);
-                    config.save();
+                    players.setPattern(uuid, nextPattern);
 
                     int displayIndex = nextIdx + 1;
 
@@ -1,5 +1,7 @@
 package com.einent.veinmining.systems;
 
+import com.einent.veinmining.config.PlayerDataStore;
+import com.einent.veinmining.config.PlayerPolicy;
 import com.einent.veinmining.config.VeinMiningConfig;
 import com.hypixel.hytale.component.ArchetypeChunk;
 import com.hypixel.hytale.component.CommandBuffer;
@@ -23,13 +25,16 @@ import java.util.concurrent.CompletableFuture;
 public class VeinMiningSystem extends EntityEventSystem<EntityStore, BreakBlockEvent> {
 
     private final Config<VeinMiningConfig> config;
+    private final PlayerDataStore players;
     private final MiningManager miningManager;
+    private final RateLimiter rateLimiter = new RateLimiter();
     private static final int PERFORM_BLOCK_UPDATE = 256;
 
-    public VeinMiningSystem(Config<VeinMiningConfig> config) {
+    public VeinMiningSystem(Config<VeinMiningConfig> config, PlayerDataStore players) {
         super(BreakBlockEvent.class);
         this.config = config;
-        this.miningManager = new MiningManager(config);
+        this.players = players;
+        this.miningManager = new MiningManager(players);
     }
 
     @Override
@@ -44,16 +49,17 @@ public class VeinMiningSystem extends EntityEventSystem<EntityStore, BreakBlockE
         UUIDComponent uuidComp = store.getComponent(ref, UUIDComponent.getComponentType());
         if (uuidComp == null) return;
 
-        VeinMiningConfig cfg = config.get();
+        VeinMiningConfig.Snapshot cfg = config.get().snapshot();
         String uuid = uuidComp.getUuid().toString();
-        boolean isAdmin = player.hasPermission("veinmining.admin");
-        VeinMiningConfig.GroupSettings group = cfg.resolveGroup(player);
+        PlayerPolicy policy = cfg.getPolicy(uuid);
+        VeinMiningConfig.GroupSettings group = policy.getGroup();
 
-        String targetMode = cfg.getValidatedTargetMode(uuid, group, isAdmin);
+        if (!players.ensureLoaded(uuid)) return;
+        String targetMode = policy.validateTargetMode(players.getTargetMode(uuid));
 
         if ("off".equalsIgnoreCase(targetMode)) return;
 
-        String activationMode = cfg.getPlayerActivation(uuid);
+        String activationMode = players.getActivation(uuid);
         boolean isActive;
 
         if ("always".equalsIgnoreCase(activationMode)) {
@@ -69,26 +75,37 @@ public class VeinMiningSystem extends EntityEventSystem<EntityStore, BreakBlockE
 
         BlockType blockType = event.getBlockType();
         String blockId = blockType.getId();
-        if (blockId.equals("Empty")) return;
+        int blockIndex = BlockTypeIndex.indexOf(blockId);
+        if (BlockTypeIndex.isEmpty(blockIndex)) return;
 
         if ("ores".equalsIgnoreCase(targetMode)) {
-            if (!blockId.contains("Ore_") || blockId.contains("_Cracked")) {
+            if (!BlockTypeIndex.isOre(blockIndex) || BlockTypeIndex.isCracked(blockIndex)) {
                 return;
             }
         }
 
         Vector3i targetPos = event.getTargetBlock();
-        int effectiveLimit = cfg.getEffectiveLimit(uuid, group, isAdmin);
+        if (player.getWorld() == null) return;
 
-        if (player.getWorld() != null) {
-            event.setCancelled(true);
-            player.getWorld().setBlock(targetPos.x, targetPos.y, targetPos.z, "Empty", PERFORM_BLOCK_UPDATE);
+        int requested = policy.getMaxVeinSize();
+        int effectiveLimit = rateLimiter.acquire(uuid, group, requested);
+        if (effectiveLimit <= 1) {
+            rateLimiter.refund(uuid, group, effectiveLimit);
+            return;
+        }
+
+        event.setCancelled(true);
+        player.getWorld().setBlock(targetPos.x, targetPos.y, targetPos.z, "Empty", PERFORM_BLOCK_UPDATE);
 
-            CompletableFuture.runAsync(() -> {
+        CompletableFuture.runAsync(() -> {
+            CompletableFuture<Integer> used = CompletableFuture.completedFuture(0);
+            try {
                 if (player.getWorld() == null) return;
-                miningManager.performVeinMine(player, ref, targetPos, blockId, blockType, store, uuid, effectiveLimit);
-            }, player.getWorld());
-        }
+                used = miningManager.performVeinMine(player, ref, targetPos, blockId, blockType, store, uuid, effectiveLimit, cfg);
+            } finally {
+                used.thenAccept(count -> rateLimiter.refund(uuid, group, effectiveLimit - count));
+            }
+        }, player.getWorld());
     }
 
     @Override